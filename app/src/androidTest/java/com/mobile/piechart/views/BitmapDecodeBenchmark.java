@@ -0,0 +1,74 @@
+package com.mobile.piechart.views;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import com.mobile.piechart.R;
+
+/**
+ * @author David Castillo Fuentes
+ * Memory a DialView layout takes to get its three images, decoding the full asset & scaling a copy
+ * of it (the old getImageResized()) against BitmapCache.decode(), which decodes straight at the
+ * target size. Results are reported to logcat under the BitmapDecodeBenchmark tag.
+ */
+public class BitmapDecodeBenchmark extends AndroidTestCase {
+
+    private static final String LOG = "BitmapDecodeBenchmark";
+    private static final int[] IMAGES = {R.drawable.lines, R.drawable.oval, R.drawable.knob};
+    // Side of the dial, in pixels
+    private static final int[] SIZES = {360, 720, 1080, 1440};
+
+    public void testPeakBytesPerLayout() {
+        Resources resources = getContext().getResources();
+        for (int size : SIZES) {
+            long oldPeak = 0;
+            long oldLargestOriginal = 0;
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocCount();
+            for (int resId : IMAGES) {
+                Bitmap original = BitmapFactory.decodeResource(resources, resId);
+                Matrix matrix = new Matrix();
+                matrix.postScale((float) size / original.getWidth(),
+                        (float) size / original.getHeight());
+                Bitmap scaled = Bitmap.createBitmap(original, 0, 0, original.getWidth(),
+                        original.getHeight(), matrix, true);
+                // The scaled copies are kept, the originals are garbage right after scaling
+                oldPeak += scaled.getAllocationByteCount();
+                oldLargestOriginal = Math.max(oldLargestOriginal, original.getAllocationByteCount());
+            }
+            long oldAllocated = Debug.getThreadAllocSize();
+            oldPeak += oldLargestOriginal;
+
+            long newPeak = 0;
+            Debug.resetThreadAllocCount();
+            for (int resId : IMAGES) {
+                Bitmap bitmap = BitmapCache.decode(resources, resId, size, size,
+                        Bitmap.Config.ARGB_8888, null);
+                newPeak += bitmap.getAllocationByteCount();
+            }
+            long newAllocated = Debug.getThreadAllocSize();
+            Debug.stopAllocCounting();
+
+            Log.i(LOG, size + "px :: peak " + oldPeak + " -> " + newPeak + " bytes, allocated "
+                    + oldAllocated + " -> " + newAllocated + " bytes");
+            assertTrue("Decoding at size must take less memory", newPeak < oldPeak);
+        }
+    }
+
+    public void testDecodeReusesBitmap() {
+        Resources resources = getContext().getResources();
+        Bitmap first = BitmapCache.decode(resources, R.drawable.knob, 512, 512,
+                Bitmap.Config.ARGB_8888, null);
+        Bitmap second = BitmapCache.decode(resources, R.drawable.oval, 512, 512,
+                Bitmap.Config.ARGB_8888, first);
+
+        assertTrue("Same size decodes must reuse the given bitmap", first == second);
+        assertEquals(512, second.getWidth());
+        assertEquals(512, second.getHeight());
+    }
+}
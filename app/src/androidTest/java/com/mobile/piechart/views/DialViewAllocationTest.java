@@ -0,0 +1,52 @@
+package com.mobile.piechart.views;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.view.View;
+
+/**
+ * @author David Castillo Fuentes
+ * Checks that drawing a DialView doesn't allocate, neither with its images nor in vector mode.
+ * Every frame of a drag goes through onDraw, so a single allocation there means garbage on every
+ * MOVE event.
+ */
+public class DialViewAllocationTest extends AndroidTestCase {
+
+    private static final int SIZE = 600;
+    private static final int FRAMES = 100;
+
+    public void testBitmapModeDrawDoesNotAllocate() {
+        assertNoAllocations(DialView.RENDER_MODE_BITMAP);
+    }
+
+    public void testVectorModeDrawDoesNotAllocate() {
+        assertNoAllocations(DialView.RENDER_MODE_VECTOR);
+    }
+
+    private void assertNoAllocations(int renderMode) {
+        DialView dialView = new DialView(getContext());
+        dialView.setRenderMode(renderMode);
+        dialView.measure(View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY));
+        dialView.layout(0, 0, SIZE, SIZE);
+
+        Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        // Warm up, the first draw pass may initialize native resources
+        dialView.draw(canvas);
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        for (int i = 0; i < FRAMES; i++) {
+            dialView.setCurrentTime(i * 60);
+            dialView.draw(canvas);
+        }
+        int allocations = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+
+        bitmap.recycle();
+        assertEquals("Allocations in " + FRAMES + " frames", 0, allocations);
+    }
+}
@@ -0,0 +1,39 @@
+package com.mobile.piechart.views;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+
+/**
+ * @author David Castillo Fuentes
+ * Checks that a fast spin doesn't flood the system with haptic calls
+ */
+public class HapticSchedulerTest extends AndroidTestCase {
+
+    private static final int STEPS = 100;
+
+    public void testStepsAreMergedIntoTheTickRate() {
+        HapticScheduler scheduler = new HapticScheduler(new View(getContext()), null);
+        scheduler.setFallbackEnabled(true);
+        scheduler.setMaxTicksPerSecond(HapticScheduler.DEFAULT_MAX_TICKS_PER_SECOND);
+
+        // A whole spin crossed at once, only the first step plays right away
+        for (int i = 0; i < STEPS; i++) {
+            scheduler.onStep();
+        }
+        assertEquals(1, scheduler.getBinderCallCount());
+        assertEquals(1, scheduler.getBinderCallsPerSecond());
+
+        // The merged tick is dropped, no vibration was started so nothing has to be cancelled
+        scheduler.cancel();
+        assertEquals(1, scheduler.getBinderCallCount());
+    }
+
+    public void testNothingIsCalledWithoutVibratorOrFallback() {
+        HapticScheduler scheduler = new HapticScheduler(new View(getContext()), null);
+        for (int i = 0; i < STEPS; i++) {
+            scheduler.onStep();
+        }
+        scheduler.cancel();
+        assertEquals(0, scheduler.getBinderCallCount());
+    }
+}
@@ -0,0 +1,48 @@
+package com.mobile.piechart.animation;
+
+/**
+ * @author David Castillo Fuentes
+ * Precomputed easing curve, the interpolator is sampled once at construction time and every
+ * lookup is a linear interpolation between two consecutive samples, so evaluating the curve on
+ * each frame costs a couple of multiplications instead of a call into the interpolator.
+ */
+public final class EasingTable {
+
+    public static final int DEFAULT_SIZE = 256;
+
+    private final float[] mSamples;
+
+    /**
+     * @param samples values of the curve at evenly spaced input values from 0 to 1 (both included)
+     */
+    public EasingTable(float[] samples) {
+        if (samples == null || samples.length < 2) {
+            throw new IllegalArgumentException("An easing table needs at least 2 samples");
+        }
+        mSamples = samples.clone();
+    }
+
+    /**
+     * @param input fraction of the animation, from 0 to 1
+     * @return returns the eased fraction for the given input
+     */
+    public float valueAt(float input) {
+        final float[] samples = mSamples;
+        final int last = samples.length - 1;
+
+        if (input <= 0f) return samples[0];
+        if (input >= 1f) return samples[last];
+
+        float position = input * last;
+        int index = (int) position;
+        float fraction = position - index;
+        return samples[index] + (samples[index + 1] - samples[index]) * fraction;
+    }
+
+    /**
+     * @return returns the number of samples of the table
+     */
+    public int size() {
+        return mSamples.length;
+    }
+}
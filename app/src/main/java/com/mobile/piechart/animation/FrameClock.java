@@ -0,0 +1,143 @@
+package com.mobile.piechart.animation;
+
+import android.view.Choreographer;
+
+/**
+ * @author David Castillo Fuentes
+ * Single animation clock shared by every chart of the process. Animators post themselves here
+ * instead of to the Choreographer, and the clock posts one Choreographer callback per vsync no
+ * matter how many charts are animating, dispatching the frame to every pending animator in order.
+ *
+ * Callbacks are kept in two arrays that are swapped on every frame, so posting & dispatching
+ * never allocate once the arrays have grown to the number of animators on screen. A callback that
+ * is removed while a frame is being dispatched is skipped if it didn't run yet.
+ *
+ * This class is not thread safe, it must be used from the UI thread.
+ */
+public final class FrameClock implements Choreographer.FrameCallback {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    public interface FrameCallback {
+
+        /**
+         * Called once on the next frame, the callback MUST post itself again to keep running
+         *
+         * @param frameTimeNanos
+         *            The time the frame started rendering, in the System.nanoTime() time base
+         */
+        void doFrame(long frameTimeNanos);
+
+    }
+
+    private static FrameClock sInstance;
+
+    // Callbacks for the next frame
+    private FrameCallback[] mPending = new FrameCallback[INITIAL_CAPACITY];
+    private int mPendingCount;
+    // Callbacks of the frame being dispatched
+    private FrameCallback[] mDispatching = new FrameCallback[INITIAL_CAPACITY];
+    private int mDispatchingCount;
+
+    private boolean mScheduled;
+    private long mFrameCount;
+
+    private FrameClock() {
+    }
+
+    /**
+     * @return returns the clock shared by every chart
+     */
+    public static FrameClock getInstance() {
+        if (sInstance == null) {
+            sInstance = new FrameClock();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Runs the given callback on the next frame, posting it twice has no effect
+     */
+    public void postFrameCallback(FrameCallback callback) {
+        final FrameCallback[] pending = mPending;
+        for (int i = 0; i < mPendingCount; i++) {
+            if (pending[i] == callback) return;
+        }
+        if (mPendingCount == pending.length) {
+            mPending = grow(pending, mPendingCount * 2);
+        }
+        mPending[mPendingCount++] = callback;
+
+        if (!mScheduled) {
+            mScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Removes the given callback from the next frame, and from the current one if it didn't run yet
+     */
+    public void removeFrameCallback(FrameCallback callback) {
+        final FrameCallback[] pending = mPending;
+        for (int i = 0; i < mPendingCount; i++) {
+            if (pending[i] == callback) {
+                System.arraycopy(pending, i + 1, pending, i, mPendingCount - i - 1);
+                pending[--mPendingCount] = null;
+                break;
+            }
+        }
+        final FrameCallback[] dispatching = mDispatching;
+        for (int i = 0; i < mDispatchingCount; i++) {
+            if (dispatching[i] == callback) {
+                dispatching[i] = null;
+            }
+        }
+
+        if (mPendingCount == 0 && mScheduled) {
+            mScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    /**
+     * @return returns the number of callbacks waiting for the next frame
+     */
+    public int getPendingCount() {
+        return mPendingCount;
+    }
+
+    /**
+     * @return returns the number of frames dispatched since the process started
+     */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        mFrameCount++;
+
+        // Callbacks posted from now on go to the next frame
+        FrameCallback[] dispatching = mPending;
+        mDispatchingCount = mPendingCount;
+        mPending = mDispatching;
+        mPendingCount = 0;
+        mDispatching = dispatching;
+
+        for (int i = 0; i < mDispatchingCount; i++) {
+            FrameCallback callback = dispatching[i];
+            if (callback != null) {
+                dispatching[i] = null;
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+        mDispatchingCount = 0;
+    }
+
+    private static FrameCallback[] grow(FrameCallback[] array, int size) {
+        FrameCallback[] result = new FrameCallback[size];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
@@ -0,0 +1,20 @@
+package com.mobile.piechart.animation;
+
+/**
+ * @author David Castillo Fuentes
+ * An animation that can stop producing frames while its view can't be seen.
+ */
+public interface Pausable {
+
+    /**
+     * Stops requesting frames, the animation timeline keeps running
+     */
+    void pause();
+
+    /**
+     * Requests frames again, if the animation should have ended while paused it jumps to its
+     * final state on the next frame
+     */
+    void resume();
+
+}
@@ -0,0 +1,300 @@
+package com.mobile.piechart.animation;
+
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+/**
+ * @author David Castillo Fuentes
+ * Animation engine for a set of rings. A single frame callback, driven by the shared FrameClock,
+ * advances every ring in one pass over primitive state arrays & notifies the listener once per
+ * vsync, so the cost of a frame is one callback no matter how many rings are animated.
+ *
+ * Every ring has its own start & end value, delay, duration and easing. The easing can be given as
+ * an Interpolator or as a precomputed EasingTable, the latter being the cheaper one per frame.
+ *
+ * The animation can be paused while its view can't be seen. The timeline keeps running while
+ * paused, so when it is resumed after its end the rings jump straight to their final values.
+ *
+ * This class is not thread safe, it must be used from the UI thread.
+ */
+public class RingAnimator implements FrameClock.FrameCallback, Pausable {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * Easing used by default, the same curve android.view.animation.Animation uses
+     */
+    public static final EasingTable DEFAULT_EASING =
+            buildEasingTable(new AccelerateDecelerateInterpolator(), EasingTable.DEFAULT_SIZE);
+
+    public interface OnRingAnimationListener {
+
+        /**
+         * Called once per frame, after every ring has been advanced
+         *
+         * @param animator
+         *            The animator whose values have changed
+         * @param values
+         *            The current value of every ring, only the first getRingCount() are valid.
+         *            The array is owned by the animator & MUST not be kept
+         */
+        void onRingAnimationUpdate(RingAnimator animator, float[] values);
+
+        /**
+         * Called when every ring has reached its end value
+         */
+        void onRingAnimationEnd(RingAnimator animator);
+    }
+
+    private int mRingCount;
+    private float[] mFromValues;
+    private float[] mToValues;
+    private float[] mValues;
+    private long[] mDelays;
+    private long[] mDurations;
+    private EasingTable[] mEasingTables;
+    private Interpolator[] mInterpolators;
+
+    private long mStartTimeNanos;
+    private boolean mRunning;
+    private boolean mPaused;
+    private OnRingAnimationListener mListener;
+
+    public RingAnimator() {
+        setRingCount(0);
+    }
+
+    /**
+     * @param ringCount number of rings to animate. Existing rings keep their configuration and new
+     *                  ones start with no delay, no duration & the default easing
+     */
+    public void setRingCount(int ringCount) {
+        int capacity = mValues == null ? 0 : mValues.length;
+        if (ringCount > capacity) {
+            mFromValues = grow(mFromValues, ringCount);
+            mToValues = grow(mToValues, ringCount);
+            mValues = grow(mValues, ringCount);
+            mDelays = grow(mDelays, ringCount);
+            mDurations = grow(mDurations, ringCount);
+
+            EasingTable[] easingTables = new EasingTable[ringCount];
+            Interpolator[] interpolators = new Interpolator[ringCount];
+            if (capacity > 0) {
+                System.arraycopy(mEasingTables, 0, easingTables, 0, capacity);
+                System.arraycopy(mInterpolators, 0, interpolators, 0, capacity);
+            }
+            for (int i = capacity; i < ringCount; i++) {
+                easingTables[i] = DEFAULT_EASING;
+            }
+            mEasingTables = easingTables;
+            mInterpolators = interpolators;
+        }
+        mRingCount = ringCount;
+    }
+
+    /**
+     * @return returns the number of animated rings
+     */
+    public int getRingCount() {
+        return mRingCount;
+    }
+
+    /**
+     * Configures the animation of a single ring
+     *
+     * @param ring index of the ring
+     * @param from value of the ring when the animation starts
+     * @param to value of the ring when the animation ends
+     * @param delay milliseconds to wait before the ring starts moving
+     * @param duration milliseconds the ring takes to go from the start value to the end value
+     */
+    public void setRing(int ring, float from, float to, long delay, long duration) {
+        checkRingIndex(ring);
+        mFromValues[ring] = from;
+        mToValues[ring] = to;
+        mValues[ring] = from;
+        mDelays[ring] = Math.max(0, delay);
+        mDurations[ring] = Math.max(0, duration);
+    }
+
+    /**
+     * @param easingTable precomputed easing for the given ring
+     */
+    public void setEasingTable(int ring, EasingTable easingTable) {
+        checkRingIndex(ring);
+        mEasingTables[ring] = easingTable;
+        mInterpolators[ring] = null;
+    }
+
+    /**
+     * @param interpolator easing for the given ring, evaluated on every frame. Prefer
+     *                     setEasingTable() for charts with many rings
+     */
+    public void setInterpolator(int ring, Interpolator interpolator) {
+        checkRingIndex(ring);
+        mInterpolators[ring] = interpolator;
+        mEasingTables[ring] = null;
+    }
+
+    /**
+     * @return returns the current value of the given ring
+     */
+    public float getValue(int ring) {
+        checkRingIndex(ring);
+        return mValues[ring];
+    }
+
+    public void setOnRingAnimationListener(OnRingAnimationListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Starts, or restarts, the animation of every ring on the next frame. If the animator is
+     * paused the animation starts on the first frame after resuming it
+     */
+    public void start() {
+        cancel();
+        mStartTimeNanos = 0;
+        mRunning = true;
+        if (!mPaused) {
+            FrameClock.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Stops the animation, the rings keep their current values
+     */
+    public void cancel() {
+        if (!mRunning) return;
+        mRunning = false;
+        FrameClock.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void pause() {
+        if (mPaused) return;
+        mPaused = true;
+        if (mRunning) {
+            FrameClock.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void resume() {
+        if (!mPaused) return;
+        mPaused = false;
+        if (mRunning) {
+            FrameClock.getInstance().postFrameCallback(this);
+        }
+    }
+
+    public boolean isPaused() {
+        return mPaused;
+    }
+
+    /**
+     * @return returns true while there is at least one ring moving or waiting for its delay
+     */
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning || mPaused) return;
+
+        if (mStartTimeNanos == 0) {
+            mStartTimeNanos = frameTimeNanos;
+        }
+
+        boolean finished = advance((frameTimeNanos - mStartTimeNanos) / NANOS_PER_MILLI);
+
+        if (finished) {
+            mRunning = false;
+        } else {
+            FrameClock.getInstance().postFrameCallback(this);
+        }
+
+        if (mListener != null) {
+            mListener.onRingAnimationUpdate(this, mValues);
+            if (finished) {
+                mListener.onRingAnimationEnd(this);
+            }
+        }
+    }
+
+    /**
+     * Moves every ring to the given point of the timeline
+     *
+     * @param elapsed milliseconds since the animation started
+     * @return returns true when every ring has reached its end value
+     */
+    private boolean advance(long elapsed) {
+        final int count = mRingCount;
+        final float[] from = mFromValues;
+        final float[] to = mToValues;
+        final float[] values = mValues;
+        final long[] delays = mDelays;
+        final long[] durations = mDurations;
+
+        boolean finished = true;
+        for (int i = 0; i < count; i++) {
+            long ringTime = elapsed - delays[i];
+            float input;
+            if (ringTime <= 0) {
+                input = 0f;
+            } else if (ringTime >= durations[i]) {
+                input = 1f;
+            } else {
+                input = (float) ringTime / durations[i];
+            }
+            if (input < 1f) {
+                finished = false;
+            }
+
+            float eased;
+            if (mEasingTables[i] != null) {
+                eased = mEasingTables[i].valueAt(input);
+            } else if (mInterpolators[i] != null) {
+                eased = mInterpolators[i].getInterpolation(input);
+            } else {
+                eased = input;
+            }
+            values[i] = from[i] + (to[i] - from[i]) * eased;
+        }
+        return finished;
+    }
+
+    /**
+     * Samples the given interpolator into a table
+     *
+     * @param interpolator the easing curve
+     * @param size number of samples, the bigger the table the smaller the error
+     * @return returns the precomputed easing table
+     */
+    public static EasingTable buildEasingTable(Interpolator interpolator, int size) {
+        float[] samples = new float[size];
+        for (int i = 0; i < size; i++) {
+            samples[i] = interpolator.getInterpolation((float) i / (size - 1));
+        }
+        return new EasingTable(samples);
+    }
+
+    private void checkRingIndex(int ring) {
+        if (ring < 0 || ring >= mRingCount) {
+            throw new IndexOutOfBoundsException("Invalid ring :: " + ring + ", count :: " + mRingCount);
+        }
+    }
+
+    private static float[] grow(float[] array, int size) {
+        float[] result = new float[size];
+        if (array != null) System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    private static long[] grow(long[] array, int size) {
+        long[] result = new long[size];
+        if (array != null) System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
@@ -0,0 +1,363 @@
+package com.mobile.piechart.animation;
+
+/**
+ * @author David Castillo Fuentes
+ * Animates a dataset from its current values to new ones, touching only the entries that changed.
+ *
+ * transitionTo() diffs the new values against the last dataset it was given & starts a transition
+ * for every changed, inserted (animated from 0) or removed (animated to 0, then dropped) entry.
+ * Every frame only walks the active transitions, so the cost of a frame is proportional to the
+ * number of entries moving and not to the size of the dataset. Transition states are pooled &
+ * reused, an entry that changes again while moving is retargeted from where it is. Frames come
+ * from the shared FrameClock.
+ *
+ * While paused no frames are requested, transitions keep their start time so the ones that should
+ * have ended by the time the engine is resumed jump to their end values on the first frame.
+ *
+ * This class is not thread safe, it must be used from the UI thread.
+ */
+public class TransitionEngine implements FrameClock.FrameCallback, Pausable {
+
+    public static final long DEFAULT_DURATION = 300;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int NONE = -1;
+
+    /**
+     * The dataset being animated
+     */
+    public interface Target {
+
+        /**
+         * Changes the number of entries, new entries MUST start at 0
+         */
+        void setCount(int count);
+
+        void setValue(int index, float value);
+
+        /**
+         * Called once per frame, after every active transition has been advanced
+         */
+        void onTransitionFrame(TransitionEngine engine);
+
+    }
+
+    /**
+     * State of a single moving entry
+     */
+    private static final class Transition {
+        int index;
+        float from;
+        float to;
+        long startTimeNanos;
+    }
+
+    private final Target mTarget;
+    private long mDuration = DEFAULT_DURATION;
+    private EasingTable mEasingTable = RingAnimator.DEFAULT_EASING;
+
+    // Last dataset given to the engine, the one the next update is diffed against
+    private int mCount;
+    private float[] mValues = new float[0];
+    // Number of entries the target has, bigger than mCount while removed entries fade out
+    private int mTargetCount;
+
+    // Active transitions, compact array & the slot of every entry (NONE if it isn't moving)
+    private Transition[] mActive = new Transition[0];
+    private int mActiveCount;
+    private int[] mSlots = new int[0];
+
+    // Pool of finished transitions
+    private Transition[] mPool = new Transition[0];
+    private int mPoolCount;
+
+    private long mFrameTimeNanos;
+    private boolean mScheduled;
+    private boolean mPaused;
+
+    public TransitionEngine(Target target) {
+        mTarget = target;
+    }
+
+    /**
+     * @param duration milliseconds every transition takes
+     */
+    public void setDuration(long duration) {
+        mDuration = Math.max(0, duration);
+    }
+
+    public void setEasingTable(EasingTable easingTable) {
+        mEasingTable = easingTable;
+    }
+
+    /**
+     * Sets the dataset the next update is diffed against, without touching the target. Used when
+     * the target was changed by other means. Active transitions are dropped where they are
+     */
+    public void sync(float[] values, int count) {
+        stop();
+        ensureCapacity(count);
+        System.arraycopy(values, 0, mValues, 0, count);
+        mCount = count;
+        mTargetCount = count;
+    }
+
+    /**
+     * Jumps to the given dataset without animating it, cancelling every active transition
+     */
+    public void reset(float[] values, int count) {
+        cancel();
+        ensureCapacity(count);
+        System.arraycopy(values, 0, mValues, 0, count);
+        mCount = count;
+        mTargetCount = count;
+        mTarget.setCount(count);
+        for (int i = 0; i < count; i++) {
+            mTarget.setValue(i, values[i]);
+        }
+        mTarget.onTransitionFrame(this);
+    }
+
+    /**
+     * Animates the target from the last dataset to the given one
+     *
+     * @param values the new values
+     * @param count number of values to take from the array
+     * @return returns the number of entries that changed
+     */
+    public int transitionTo(float[] values, int count) {
+        if (count < 0 || count > values.length) {
+            throw new IllegalArgumentException("Invalid count :: " + count);
+        }
+        final int oldCount = mCount;
+        ensureCapacity(Math.max(count, oldCount));
+        final float[] current = mValues;
+
+        // Inserted entries grow the target right away & start from 0
+        if (count > mTargetCount) {
+            mTarget.setCount(count);
+            for (int i = mTargetCount; i < count; i++) {
+                current[i] = 0;
+            }
+            mTargetCount = count;
+        }
+
+        int changes = 0;
+        final int common = Math.min(count, oldCount);
+        for (int i = 0; i < common; i++) {
+            if (current[i] != values[i]) {
+                start(i, values[i]);
+                changes++;
+            }
+        }
+        for (int i = oldCount; i < count; i++) {
+            start(i, values[i]);
+            changes++;
+        }
+        // Removed entries fade to 0 & are dropped when every transition is done
+        for (int i = count; i < oldCount; i++) {
+            start(i, 0);
+            changes++;
+        }
+
+        System.arraycopy(values, 0, current, 0, count);
+        mCount = count;
+        schedule();
+        return changes;
+    }
+
+    /**
+     * Animates a single entry to the given value
+     */
+    public void transitionTo(int index, float value) {
+        if (index < 0 || index >= mCount) {
+            throw new IndexOutOfBoundsException("Invalid index :: " + index + ", count :: " + mCount);
+        }
+        if (mValues[index] == value) return;
+        mValues[index] = value;
+        start(index, value);
+        schedule();
+    }
+
+    /**
+     * Stops every transition, jumping to the end values
+     */
+    public void cancel() {
+        unschedule();
+        if (mActiveCount == 0) return;
+        for (int i = mActiveCount - 1; i >= 0; i--) {
+            Transition transition = mActive[i];
+            mTarget.setValue(transition.index, transition.to);
+            finish(i);
+        }
+        dropRemovedEntries();
+        mTarget.onTransitionFrame(this);
+    }
+
+    /**
+     * Stops every transition, leaving the target where it is
+     */
+    public void stop() {
+        unschedule();
+        for (int i = mActiveCount - 1; i >= 0; i--) {
+            finish(i);
+        }
+    }
+
+    @Override
+    public void pause() {
+        mPaused = true;
+        unschedule();
+    }
+
+    @Override
+    public void resume() {
+        mPaused = false;
+        schedule();
+    }
+
+    /**
+     * @return returns the number of entries currently moving
+     */
+    public int getActiveCount() {
+        return mActiveCount;
+    }
+
+    public boolean isRunning() {
+        return mActiveCount > 0;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        mFrameTimeNanos = frameTimeNanos;
+
+        final long duration = mDuration * NANOS_PER_MILLI;
+        for (int i = mActiveCount - 1; i >= 0; i--) {
+            Transition transition = mActive[i];
+            if (transition.startTimeNanos == 0) {
+                transition.startTimeNanos = frameTimeNanos;
+            }
+
+            long elapsed = frameTimeNanos - transition.startTimeNanos;
+            if (elapsed >= duration) {
+                mTarget.setValue(transition.index, transition.to);
+                finish(i);
+            } else {
+                float eased = mEasingTable.valueAt((float) elapsed / duration);
+                mTarget.setValue(transition.index,
+                        transition.from + (transition.to - transition.from) * eased);
+            }
+        }
+
+        if (mActiveCount == 0) {
+            dropRemovedEntries();
+        } else {
+            schedule();
+        }
+        mTarget.onTransitionFrame(this);
+    }
+
+    /**
+     * Starts (or retargets) the transition of the given entry towards the given value
+     */
+    private void start(int index, float to) {
+        Transition transition;
+        int slot = mSlots[index];
+        if (slot != NONE) {
+            // Already moving, continue from where it is
+            transition = mActive[slot];
+            transition.from = currentValue(transition);
+        } else {
+            transition = obtain();
+            transition.index = index;
+            transition.from = mValues[index];
+            mSlots[index] = mActiveCount;
+            mActive[mActiveCount++] = transition;
+        }
+        transition.to = to;
+        transition.startTimeNanos = 0;
+    }
+
+    private float currentValue(Transition transition) {
+        if (transition.startTimeNanos == 0) return transition.from;
+        long duration = mDuration * NANOS_PER_MILLI;
+        long elapsed = mFrameTimeNanos - transition.startTimeNanos;
+        if (elapsed >= duration) return transition.to;
+        float eased = mEasingTable.valueAt((float) elapsed / duration);
+        return transition.from + (transition.to - transition.from) * eased;
+    }
+
+    /**
+     * Removes the transition at the given slot, moving the last one into its place
+     */
+    private void finish(int slot) {
+        Transition transition = mActive[slot];
+        mSlots[transition.index] = NONE;
+
+        int last = --mActiveCount;
+        if (slot != last) {
+            Transition moved = mActive[last];
+            mActive[slot] = moved;
+            mSlots[moved.index] = slot;
+        }
+        mActive[last] = null;
+        recycle(transition);
+    }
+
+    private void dropRemovedEntries() {
+        if (mTargetCount > mCount) {
+            mTargetCount = mCount;
+            mTarget.setCount(mCount);
+        }
+    }
+
+    private void schedule() {
+        if (mScheduled || mPaused || mActiveCount == 0) return;
+        mScheduled = true;
+        FrameClock.getInstance().postFrameCallback(this);
+    }
+
+    private void unschedule() {
+        if (!mScheduled) return;
+        mScheduled = false;
+        FrameClock.getInstance().removeFrameCallback(this);
+    }
+
+    private Transition obtain() {
+        if (mPoolCount > 0) {
+            Transition transition = mPool[--mPoolCount];
+            mPool[mPoolCount] = null;
+            return transition;
+        }
+        return new Transition();
+    }
+
+    private void recycle(Transition transition) {
+        if (mPoolCount == mPool.length) {
+            Transition[] pool = new Transition[Math.max(16, mPoolCount * 2)];
+            System.arraycopy(mPool, 0, pool, 0, mPoolCount);
+            mPool = pool;
+        }
+        mPool[mPoolCount++] = transition;
+    }
+
+    private void ensureCapacity(int count) {
+        int capacity = mValues.length;
+        if (count <= capacity) return;
+
+        float[] values = new float[count];
+        System.arraycopy(mValues, 0, values, 0, capacity);
+        mValues = values;
+
+        int[] slots = new int[count];
+        System.arraycopy(mSlots, 0, slots, 0, capacity);
+        for (int i = capacity; i < count; i++) {
+            slots[i] = NONE;
+        }
+        mSlots = slots;
+
+        Transition[] active = new Transition[count];
+        System.arraycopy(mActive, 0, active, 0, mActiveCount);
+        mActive = active;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mobile.piechart.data;
+
+/**
+ * @author David Castillo Fuentes
+ * Immutable view of the totals of a CategoryAggregator at a given point in time. Snapshots are
+ * safe to share between threads, a newer snapshot always has a bigger version.
+ */
+public final class AggregateSnapshot {
+
+    private final float[] mValues;
+    private final long[] mRecordCounts;
+    private final long mTotalRecords;
+    private final long mVersion;
+
+    AggregateSnapshot(double[] totals, long[] recordCounts, long totalRecords, long version) {
+        int count = totals.length;
+        mValues = new float[count];
+        for (int i = 0; i < count; i++) {
+            mValues[i] = (float) totals[i];
+        }
+        mRecordCounts = recordCounts.clone();
+        mTotalRecords = totalRecords;
+        mVersion = version;
+    }
+
+    /**
+     * @return returns the number of categories
+     */
+    public int getCount() {
+        return mValues.length;
+    }
+
+    /**
+     * @return returns the sum of the values of every record of the given category
+     */
+    public float getValue(int category) {
+        return mValues[category];
+    }
+
+    /**
+     * @return returns a copy of the sums of every category
+     */
+    public float[] getValues() {
+        return mValues.clone();
+    }
+
+    /**
+     * @return returns the sums of every category without copying them, MUST not be modified
+     */
+    float[] values() {
+        return mValues;
+    }
+
+    /**
+     * @return returns the number of records folded into the given category
+     */
+    public long getRecordCount(int category) {
+        return mRecordCounts[category];
+    }
+
+    /**
+     * @return returns the number of records folded into this snapshot
+     */
+    public long getTotalRecords() {
+        return mTotalRecords;
+    }
+
+    public long getVersion() {
+        return mVersion;
+    }
+}
@@ -0,0 +1,242 @@
+package com.mobile.piechart.data;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author David Castillo Fuentes
+ * Aggregates raw (category, value) records into per category totals away from the UI thread.
+ *
+ * Every submitted batch is split in chunks which are folded in parallel on a worker pool into
+ * local primitive accumulators, and then merged into the running totals. Only the new records are
+ * processed, so feeding new batches never rescans the records already aggregated.
+ *
+ * When a batch is done an immutable AggregateSnapshot is published. Snapshots are delivered to the
+ * listener on the callback executor (usually the UI thread), if the listener is behind only the
+ * latest snapshot is delivered.
+ */
+public class CategoryAggregator {
+
+    private static final int MIN_CHUNK_SIZE = 16 * 1024;
+
+    public interface OnSnapshotListener {
+
+        /**
+         * Called on the callback executor with the latest totals
+         *
+         * @param aggregator
+         *            The aggregator that published the snapshot
+         * @param snapshot
+         *            The totals of every category
+         */
+        void onSnapshot(CategoryAggregator aggregator, AggregateSnapshot snapshot);
+
+    }
+
+    private final int mCategoryCount;
+    private final ExecutorService mWorkers;
+    private final boolean mOwnsWorkers;
+    private final int mParallelism;
+
+    // Running totals, guarded by mLock
+    private final Object mLock = new Object();
+    private final double[] mTotals;
+    private final long[] mRecordCounts;
+    private long mTotalRecords;
+    private long mIgnoredRecords;
+    private long mVersion;
+    private volatile AggregateSnapshot mSnapshot;
+
+    private volatile OnSnapshotListener mListener;
+    private volatile Executor mCallbackExecutor;
+    private final AtomicBoolean mDeliveryPending = new AtomicBoolean();
+    private final Runnable mDeliverSnapshot = new Runnable() {
+        @Override
+        public void run() {
+            mDeliveryPending.set(false);
+            OnSnapshotListener listener = mListener;
+            if (listener != null) {
+                listener.onSnapshot(CategoryAggregator.this, mSnapshot);
+            }
+        }
+    };
+
+    /**
+     * Creates an aggregator with its own worker pool, one thread per available processor
+     *
+     * @param categoryCount number of categories, records are expected in [0, categoryCount)
+     */
+    public CategoryAggregator(int categoryCount) {
+        this(categoryCount, Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * @param categoryCount number of categories, records are expected in [0, categoryCount)
+     * @param parallelism max number of chunks a batch is split in
+     * @param workers pool the chunks are folded on, null to create one that is owned (and shut
+     *                down) by the aggregator
+     */
+    public CategoryAggregator(int categoryCount, int parallelism, ExecutorService workers) {
+        if (categoryCount < 0) {
+            throw new IllegalArgumentException("Invalid category count :: " + categoryCount);
+        }
+        mCategoryCount = categoryCount;
+        mParallelism = Math.max(1, parallelism);
+        mOwnsWorkers = workers == null;
+        mWorkers = workers != null ? workers
+                : Executors.newFixedThreadPool(mParallelism, new WorkerThreadFactory());
+        mTotals = new double[categoryCount];
+        mRecordCounts = new long[categoryCount];
+        mSnapshot = new AggregateSnapshot(mTotals, mRecordCounts, 0, 0);
+    }
+
+    /**
+     * @param listener listener notified with the latest snapshot
+     * @param callbackExecutor executor the listener is called on
+     */
+    public void setOnSnapshotListener(OnSnapshotListener listener, Executor callbackExecutor) {
+        mCallbackExecutor = callbackExecutor;
+        mListener = listener;
+    }
+
+    /**
+     * Folds a batch of records into the totals, asynchronously. The arrays are read from the
+     * worker threads, so they MUST not be modified after calling this method
+     *
+     * @param categories category of every record
+     * @param values value of every record
+     * @param count number of records of the batch
+     */
+    public void submit(final int[] categories, final double[] values, int count) {
+        if (count < 0 || count > categories.length || count > values.length) {
+            throw new IllegalArgumentException("Invalid record count :: " + count);
+        }
+        if (count == 0) return;
+
+        // The number of tasks is derived from the chunk size, so the last task always publishes
+        int maxChunks = Math.max(1, Math.min(mParallelism, count / MIN_CHUNK_SIZE));
+        int chunkSize = (count + maxChunks - 1) / maxChunks;
+        int chunks = (count + chunkSize - 1) / chunkSize;
+        final AtomicInteger pendingChunks = new AtomicInteger(chunks);
+
+        for (int from = 0; from < count; from += chunkSize) {
+            final int start = from;
+            final int end = Math.min(count, from + chunkSize);
+            mWorkers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    fold(categories, values, start, end);
+                    if (pendingChunks.decrementAndGet() == 0) {
+                        publish();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Clears every total and publishes an empty snapshot
+     */
+    public void reset() {
+        synchronized (mLock) {
+            for (int i = 0; i < mCategoryCount; i++) {
+                mTotals[i] = 0;
+                mRecordCounts[i] = 0;
+            }
+            mTotalRecords = 0;
+            mIgnoredRecords = 0;
+        }
+        publish();
+    }
+
+    /**
+     * @return returns the latest published snapshot
+     */
+    public AggregateSnapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * @return returns how many records were dropped because their category was out of range
+     */
+    public long getIgnoredRecords() {
+        synchronized (mLock) {
+            return mIgnoredRecords;
+        }
+    }
+
+    public int getCategoryCount() {
+        return mCategoryCount;
+    }
+
+    /**
+     * Stops the worker pool if it is owned by the aggregator, pending batches are still folded
+     */
+    public void shutdown() {
+        mListener = null;
+        if (mOwnsWorkers) {
+            mWorkers.shutdown();
+        }
+    }
+
+    /**
+     * Folds a range of records into local accumulators & merges them into the totals
+     */
+    private void fold(int[] categories, double[] values, int start, int end) {
+        final int categoryCount = mCategoryCount;
+        final double[] totals = new double[categoryCount];
+        final long[] counts = new long[categoryCount];
+        long ignored = 0;
+
+        for (int i = start; i < end; i++) {
+            int category = categories[i];
+            if (category < 0 || category >= categoryCount) {
+                ignored++;
+                continue;
+            }
+            totals[category] += values[i];
+            counts[category]++;
+        }
+
+        synchronized (mLock) {
+            for (int i = 0; i < categoryCount; i++) {
+                mTotals[i] += totals[i];
+                mRecordCounts[i] += counts[i];
+            }
+            mTotalRecords += end - start - ignored;
+            mIgnoredRecords += ignored;
+        }
+    }
+
+    /**
+     * Takes a snapshot of the totals & schedules its delivery, unless one is already scheduled
+     */
+    private void publish() {
+        synchronized (mLock) {
+            mVersion++;
+            mSnapshot = new AggregateSnapshot(mTotals, mRecordCounts, mTotalRecords, mVersion);
+        }
+
+        Executor executor = mCallbackExecutor;
+        if (mListener != null && executor != null && mDeliveryPending.compareAndSet(false, true)) {
+            executor.execute(mDeliverSnapshot);
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "CategoryAggregator-" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.mobile.piechart.data;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author David Castillo Fuentes
+ * Lock free channel to push chart values from a background thread to the UI thread.
+ *
+ * It is a triple buffer: the producer fills the back buffer and publishes it with a single atomic
+ * swap against the middle buffer, the consumer (onDraw) swaps the middle buffer with the front one
+ * only when there is something new. Neither side ever blocks or allocates, and when the producer
+ * is faster than the display the values in between are simply overwritten (coalesced).
+ *
+ * The producer asks for at most one frame until the consumer acknowledges it, so no matter how
+ * fast the updates come the view is invalidated once per frame.
+ *
+ * There can be a single producer thread at a time, producers sharing a feed MUST serialize their
+ * calls to publish().
+ */
+public class LiveFeed {
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4;
+
+    public interface OnFrameRequestListener {
+
+        /**
+         * Called from the producer thread when new values are waiting for a frame. It is not
+         * called again until the consumer calls onFrame(), so it is safe to invalidate from here
+         */
+        void onFrameRequested(LiveFeed liveFeed);
+
+    }
+
+    private final float[][] mBuffers;
+    private final int[] mCounts;
+
+    // Index of the middle buffer, plus the FRESH bit when it holds values not consumed yet
+    private final AtomicInteger mMiddle = new AtomicInteger(1);
+    // Owned by the producer
+    private int mBack = 0;
+    // Owned by the consumer
+    private int mFront = 2;
+
+    private final AtomicBoolean mFrameRequested = new AtomicBoolean();
+    private volatile OnFrameRequestListener mOnFrameRequestListener;
+
+    private final AtomicLong mPublishedCount = new AtomicLong();
+    private final AtomicLong mConsumedCount = new AtomicLong();
+    private final AtomicLong mCoalescedCount = new AtomicLong();
+
+    /**
+     * @param capacity max number of values of an update
+     */
+    public LiveFeed(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity :: " + capacity);
+        }
+        mBuffers = new float[3][capacity];
+        mCounts = new int[3];
+    }
+
+    public int getCapacity() {
+        return mBuffers[0].length;
+    }
+
+    public void setOnFrameRequestListener(OnFrameRequestListener listener) {
+        mOnFrameRequestListener = listener;
+    }
+
+    /**
+     * Producer side
+     *
+     * @return returns the buffer to be filled with the next update. Only valid until publish()
+     */
+    public float[] getBackBuffer() {
+        return mBuffers[mBack];
+    }
+
+    /**
+     * Producer side, publishes the values written into the back buffer
+     *
+     * @param count number of values written
+     */
+    public void publish(int count) {
+        if (count < 0 || count > mBuffers[mBack].length) {
+            throw new IllegalArgumentException("Invalid count :: " + count);
+        }
+        mCounts[mBack] = count;
+
+        int previous = mMiddle.getAndSet(mBack | FRESH);
+        mBack = previous & INDEX_MASK;
+        mPublishedCount.incrementAndGet();
+        if ((previous & FRESH) != 0) {
+            // The previous update was never displayed
+            mCoalescedCount.incrementAndGet();
+        }
+
+        OnFrameRequestListener listener = mOnFrameRequestListener;
+        if (listener != null && mFrameRequested.compareAndSet(false, true)) {
+            listener.onFrameRequested(this);
+        }
+    }
+
+    /**
+     * Producer side, copies the given values into the back buffer & publishes them
+     */
+    public void publish(float[] values, int count) {
+        if (count < 0 || count > values.length || count > mBuffers[mBack].length) {
+            throw new IllegalArgumentException("Invalid count :: " + count);
+        }
+        System.arraycopy(values, 0, mBuffers[mBack], 0, count);
+        publish(count);
+    }
+
+    /**
+     * Consumer side, MUST be called at the beginning of every frame so that the producer can
+     * request the next one
+     *
+     * @return returns true if there are new values, in which case the front buffer was updated
+     */
+    public boolean onFrame() {
+        mFrameRequested.set(false);
+        if ((mMiddle.get() & FRESH) == 0) return false;
+
+        int previous = mMiddle.getAndSet(mFront);
+        mFront = previous & INDEX_MASK;
+        mConsumedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Consumer side
+     *
+     * @return returns the latest values received, only valid until the next onFrame()
+     */
+    public float[] getFrontBuffer() {
+        return mBuffers[mFront];
+    }
+
+    /**
+     * Consumer side
+     *
+     * @return returns the number of values of the front buffer
+     */
+    public int getFrontCount() {
+        return mCounts[mFront];
+    }
+
+    /**
+     * @return returns the number of updates published by the producer
+     */
+    public long getPublishedCount() {
+        return mPublishedCount.get();
+    }
+
+    /**
+     * @return returns the number of updates that reached the consumer
+     */
+    public long getConsumedCount() {
+        return mConsumedCount.get();
+    }
+
+    /**
+     * @return returns the number of updates overwritten by a newer one before being consumed
+     */
+    public long getCoalescedCount() {
+        return mCoalescedCount.get();
+    }
+}
@@ -0,0 +1,372 @@
+package com.mobile.piechart.data;
+
+import java.util.Arrays;
+
+/**
+ * @author David Castillo Fuentes
+ * Data model of a pie/donut chart made of slices. The values are kept in a primitive array along
+ * with their cumulative sums, which is what both the drawing & the hit testing work on.
+ *
+ * The cumulative sums live in a Fenwick tree (binary indexed tree) stored in a double[], so the
+ * start angle of a slice, the slice at a given angle & updating a single value are all O(log n).
+ * Angles are derived from the sums on demand, which means changing the total never requires
+ * touching every slice.
+ *
+ * Slices smaller than the minimum run angle (usually one pixel of arc length) are merged into
+ * aggregated runs. Runs are built by jumping over the cumulative sums with a tree search, so the
+ * number of runs, and the cost of building them, depend on the size of the chart and not on the
+ * number of slices. Runs are only rebuilt when the data or the minimum run angle changed.
+ *
+ * This class is not thread safe.
+ */
+public class SliceModel {
+
+    public static final float FULL_CIRCLE = 360f;
+    private static final int[] DEFAULT_COLORS = {0xff6abb3f, 0xff1c833a, 0xffb8df9d};
+
+    private int mCount;
+    private float[] mValues = new float[0];
+
+    // Fenwick tree of the values (negative values count as 0), 1-based with mCount + 1 entries
+    private double[] mTree = new double[1];
+    private double mTotal;
+
+    private int[] mColors = DEFAULT_COLORS;
+
+    // Runs, built by updateRuns()
+    private int mRunCount;
+    private float[] mRunStartAngles = new float[0];
+    private float[] mRunSweepAngles = new float[0];
+    private int[] mRunColors = new int[0];
+    private int[] mRunFirstSlices = new int[0];
+    private float mRunMinAngle = -1;
+    private boolean mRunsDirty = true;
+
+    /**
+     * Replaces every value of the model, O(n)
+     *
+     * @param values the values of the slices, negative values are treated as 0
+     * @param count number of values to take from the array
+     */
+    public void setValues(float[] values, int count) {
+        if (count < 0 || count > values.length) {
+            throw new IllegalArgumentException("Invalid slice count :: " + count);
+        }
+        ensureCapacity(count);
+        System.arraycopy(values, 0, mValues, 0, count);
+        mCount = count;
+        rebuildTree();
+    }
+
+    /**
+     * Replaces the slices with the totals of the given snapshot, copied once into the model. O(n)
+     */
+    public void setValues(AggregateSnapshot snapshot) {
+        float[] values = snapshot.values();
+        setValues(values, values.length);
+    }
+
+    /**
+     * Changes the number of slices, new slices are empty. O(n)
+     */
+    public void setCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid slice count :: " + count);
+        }
+        if (count == mCount) return;
+        ensureCapacity(count);
+        for (int i = mCount; i < count; i++) {
+            mValues[i] = 0;
+        }
+        mCount = count;
+        rebuildTree();
+    }
+
+    /**
+     * Updates a single value, O(log n)
+     */
+    public void setValue(int slice, float value) {
+        checkSliceIndex(slice);
+        float oldValue = mValues[slice];
+        if (oldValue == value) return;
+        mValues[slice] = value;
+
+        double delta = Math.max(0f, value) - Math.max(0f, oldValue);
+        if (delta != 0) {
+            final double[] tree = mTree;
+            final int count = mCount;
+            for (int i = slice + 1; i <= count; i += i & -i) {
+                tree[i] += delta;
+            }
+            mTotal += delta;
+        }
+        mRunsDirty = true;
+    }
+
+    public float getValue(int slice) {
+        checkSliceIndex(slice);
+        return mValues[slice];
+    }
+
+    /**
+     * @return returns the number of slices
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return returns the sum of every value of the model
+     */
+    public double getTotal() {
+        return mTotal;
+    }
+
+    /**
+     * @param colors palette used to paint the slices, slice i takes the color i % colors.length
+     */
+    public void setColors(int[] colors) {
+        if (colors == null || colors.length == 0) {
+            throw new IllegalArgumentException("At least one color is required");
+        }
+        // Rebinding the same palette doesn't copy it again
+        if (Arrays.equals(mColors, colors)) return;
+        mColors = colors.clone();
+        mRunsDirty = true;
+    }
+
+    public int getColor(int slice) {
+        return mColors[slice % mColors.length];
+    }
+
+    /**
+     * @return returns where the given slice starts, in degrees from 0 to 360
+     */
+    public float getStartAngle(int slice) {
+        checkSliceIndex(slice);
+        if (mTotal <= 0) return 0;
+        return (float) (sumBefore(slice) * FULL_CIRCLE / mTotal);
+    }
+
+    /**
+     * @return returns the sweep of the given slice, in degrees
+     */
+    public float getSweepAngle(int slice) {
+        checkSliceIndex(slice);
+        if (mTotal <= 0) return 0;
+        return (float) (Math.max(0f, mValues[slice]) * FULL_CIRCLE / mTotal);
+    }
+
+    /**
+     * Tree search of the slice drawn at the given angle, O(log n)
+     *
+     * @param angle angle in degrees from 0 to 360, relative to the start of the first slice
+     * @return returns the index of the slice, or -1 if there is no slice at that angle
+     */
+    public int indexAtAngle(float angle) {
+        if (mCount == 0 || mTotal <= 0) return -1;
+        if (angle < 0 || angle >= FULL_CIRCLE) return -1;
+        return sliceAtSum(angle * mTotal / FULL_CIRCLE);
+    }
+
+    /**
+     * Rebuilds the runs if the data or the minimum run angle changed
+     *
+     * @param minRunAngle minimum sweep of a run, in degrees. Consecutive slices smaller than this
+     *                    are merged into a single run
+     * @return returns true if the runs were rebuilt
+     */
+    public boolean updateRuns(float minRunAngle) {
+        if (!mRunsDirty && minRunAngle == mRunMinAngle) return false;
+
+        mRunMinAngle = minRunAngle;
+        mRunsDirty = false;
+        mRunCount = 0;
+
+        final int count = mCount;
+        final double total = mTotal;
+        if (count == 0 || total <= 0) return true;
+
+        final double scale = FULL_CIRCLE / total;
+        final double minRunSum = minRunAngle / scale;
+
+        int slice = 0;
+        double start = 0;
+        while (slice < count) {
+            // The run ends at the first slice boundary reaching the target sum
+            int end = lastBoundaryBelow(start + minRunSum) + 1;
+            if (end <= slice) end = slice + 1;
+            if (end > count) end = count;
+
+            double endSum = sumBefore(end);
+            if (endSum > start) {
+                // A merged run takes the color of the slice drawn at its middle
+                int color = getColor(end - slice == 1 ? slice : sliceAtSum((start + endSum) / 2));
+                addRun((float) (start * scale), (float) ((endSum - start) * scale), color, slice);
+            }
+            slice = end;
+            start = endSum;
+        }
+        return true;
+    }
+
+    /**
+     * @return returns the number of runs built by the last updateRuns() call
+     */
+    public int getRunCount() {
+        return mRunCount;
+    }
+
+    public float getRunStartAngle(int run) {
+        return mRunStartAngles[run];
+    }
+
+    /**
+     * @return returns the minimum run angle the runs were last built with. Every run but the last
+     * sweeps at least this much, so there are at most 360 / angle + 1 of them
+     */
+    public float getRunMinAngle() {
+        return mRunMinAngle;
+    }
+
+    public float getRunSweepAngle(int run) {
+        return mRunSweepAngles[run];
+    }
+
+    public int getRunColor(int run) {
+        return mRunColors[run];
+    }
+
+    /**
+     * @return returns the first slice merged into the given run
+     */
+    public int getRunFirstSlice(int run) {
+        return mRunFirstSlices[run];
+    }
+
+    /**
+     * @return returns the sum of the slices before the given one, O(log n)
+     */
+    private double sumBefore(int slice) {
+        final double[] tree = mTree;
+        double sum = 0;
+        for (int i = slice; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return returns the slice containing the given cumulative sum, skipping the empty ones
+     */
+    private int sliceAtSum(double sum) {
+        int slice = lastBoundaryAtOrBelow(sum);
+        if (slice >= mCount) {
+            // Rounding pushed the sum to the very end, take the last non empty slice
+            slice = lastBoundaryBelow(mTotal);
+        }
+        return slice;
+    }
+
+    /**
+     * @return returns the biggest boundary b (in [0, count]) whose cumulative sum is <= the given
+     * one, the slice starting there is the one containing the sum
+     */
+    private int lastBoundaryAtOrBelow(double sum) {
+        final double[] tree = mTree;
+        final int count = mCount;
+        int position = 0;
+        double remaining = sum;
+        for (int step = Integer.highestOneBit(count); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= count && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * @return returns the biggest boundary b (in [0, count]) whose cumulative sum is < the given one
+     */
+    private int lastBoundaryBelow(double sum) {
+        final double[] tree = mTree;
+        final int count = mCount;
+        int position = 0;
+        double remaining = sum;
+        for (int step = Integer.highestOneBit(count); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= count && tree[next] < remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    private void addRun(float start, float sweep, int color, int firstSlice) {
+        if (mRunCount == mRunStartAngles.length) {
+            int capacity = Math.max(16, mRunCount * 2);
+            mRunStartAngles = grow(mRunStartAngles, capacity);
+            mRunSweepAngles = grow(mRunSweepAngles, capacity);
+            mRunColors = grow(mRunColors, capacity);
+            mRunFirstSlices = grow(mRunFirstSlices, capacity);
+        }
+        mRunStartAngles[mRunCount] = start;
+        mRunSweepAngles[mRunCount] = sweep;
+        mRunColors[mRunCount] = color;
+        mRunFirstSlices[mRunCount] = firstSlice;
+        mRunCount++;
+    }
+
+    /**
+     * Builds the Fenwick tree from the values in O(n)
+     */
+    private void rebuildTree() {
+        final double[] tree = mTree;
+        final float[] values = mValues;
+        final int count = mCount;
+
+        double total = 0;
+        tree[0] = 0;
+        for (int i = 1; i <= count; i++) {
+            float value = values[i - 1];
+            tree[i] = value > 0 ? value : 0;
+            total += tree[i];
+        }
+        for (int i = 1; i <= count; i++) {
+            int parent = i + (i & -i);
+            if (parent <= count) {
+                tree[parent] += tree[i];
+            }
+        }
+        mTotal = total;
+        mRunsDirty = true;
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= mValues.length) return;
+        int capacity = Math.max(count, mValues.length + (mValues.length >> 1));
+        mValues = grow(mValues, capacity);
+        mTree = new double[capacity + 1];
+    }
+
+    private void checkSliceIndex(int slice) {
+        if (slice < 0 || slice >= mCount) {
+            throw new IndexOutOfBoundsException("Invalid slice :: " + slice + ", count :: " + mCount);
+        }
+    }
+
+    private static float[] grow(float[] array, int size) {
+        float[] result = new float[size];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    private static int[] grow(int[] array, int size) {
+        int[] result = new int[size];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
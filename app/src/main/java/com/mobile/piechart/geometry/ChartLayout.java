@@ -0,0 +1,131 @@
+package com.mobile.piechart.geometry;
+
+/**
+ * @author David Castillo Fuentes
+ * Layout math shared by the views, on plain floats & caller owned arrays so it runs without
+ * allocating and without Android (it is benchmarked on the JVM).
+ */
+public final class ChartLayout {
+
+    public static final int NO_RING = -1;
+
+    // Distance between two consecutive rings, in units of the base stroke width
+    private static final float RING_PITCH_FACTOR = 2.5f;
+    // Insets of the three rings of the original chart, in units of the base stroke width. Three
+    // rings keep them, so that existing layouts look the same
+    private static final float[] LEGACY_INSET_FACTORS = {0f, 3f, 5f};
+    // Smallest distance between two of the legacy rings, in units of the base stroke width
+    private static final float LEGACY_MIN_PITCH_FACTOR = 2f;
+    // Max portion of the radius the rings can take, the rest is left empty in the center
+    private static final float MAX_RING_FILL = 0.8f;
+    // Max portion of the ring pitch a stroke can take, so that rings never overlap
+    private static final float MAX_STROKE_PITCH_RATIO = 0.9f;
+
+    private ChartLayout() {
+    }
+
+    /**
+     * Calculates the square, centered in the content area, the chart is drawn in
+     *
+     * @param padding stroke width of the outer ring, half of it is left at every side
+     * @param bounds receives the left, top, right & bottom of the square, relative to the content
+     */
+    public static void squareBounds(int contentWidth, int contentHeight, float padding,
+                                    float[] bounds) {
+        if (contentHeight > contentWidth) {
+            bounds[0] = padding / 2f;
+            bounds[1] = (contentHeight - contentWidth + padding) / 2f;
+            bounds[2] = contentWidth - padding / 2f;
+            bounds[3] = contentHeight - bounds[1];
+        } else if (contentWidth > contentHeight) {
+            bounds[0] = (contentWidth - contentHeight + padding) / 2f;
+            bounds[1] = padding / 2f;
+            bounds[2] = (contentWidth + contentHeight - padding) / 2f;
+            bounds[3] = contentHeight - padding / 2f;
+        } else {
+            bounds[0] = padding / 2f;
+            bounds[1] = padding / 2f;
+            bounds[2] = contentWidth - padding / 2f;
+            bounds[3] = contentHeight - padding / 2f;
+        }
+    }
+
+    /**
+     * Calculates the inset & stroke width of every ring relative to the outer ring. The rings are
+     * spread with a constant pitch, which shrinks when needed so that all of them fit. Three rings
+     * keep the insets of the original chart (0, 3 & 5 base stroke widths) as long as they fit
+     *
+     * @param baseSize side of the chart, the stroke width percentages are relative to it
+     * @param baseRadius radius of the outer ring
+     * @param padding stroke width of the outer ring
+     * @param insets receives the distance from the outer ring to every ring
+     * @param strokeWidths receives the stroke width of every ring
+     * @param outerRadii receives the radius of the outer edge of every ring, decreasing
+     * @param innerRadii receives the radius of the inner edge of every ring
+     */
+    public static void layoutRings(float baseSize, float baseRadius, float padding,
+                                   float[] strokeWidthPercentages, int ringCount, float[] insets,
+                                   float[] strokeWidths, float[] outerRadii, float[] innerRadii) {
+        float maxInset = MAX_RING_FILL * baseRadius;
+        final float[] legacy = LEGACY_INSET_FACTORS;
+        boolean useLegacy = ringCount == legacy.length
+                && legacy[legacy.length - 1] * padding <= maxInset;
+
+        float pitch = RING_PITCH_FACTOR * padding;
+        if (useLegacy) {
+            pitch = LEGACY_MIN_PITCH_FACTOR * padding;
+        } else if (ringCount > 1) {
+            pitch = Math.min(pitch, maxInset / (ringCount - 1));
+        }
+
+        for (int i = 0; i < ringCount; i++) {
+            insets[i] = useLegacy ? legacy[i] * padding : i * pitch;
+            float strokeWidth = strokeWidthPercentages[i] * baseSize;
+            if (ringCount > 1) {
+                strokeWidth = Math.min(strokeWidth, MAX_STROKE_PITCH_RATIO * pitch);
+            }
+            strokeWidths[i] = strokeWidth;
+            outerRadii[i] = baseRadius - insets[i] + strokeWidth / 2f;
+            innerRadii[i] = baseRadius - insets[i] - strokeWidth / 2f;
+        }
+    }
+
+    /**
+     * Binary search of the ring at the given distance from the center, O(log n)
+     *
+     * @param outerRadii outer radius of every ring, decreasing, as given by layoutRings()
+     * @param innerRadii inner radius of every ring
+     * @return returns the index of the ring, or NO_RING if the distance falls between rings
+     */
+    public static int ringAt(float[] outerRadii, float[] innerRadii, int ringCount,
+                             float distance) {
+        if (ringCount == 0 || distance > outerRadii[0]) return NO_RING;
+
+        // Last ring whose outer edge is still beyond the touch
+        int low = 0;
+        int high = ringCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (outerRadii[middle] >= distance) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return distance >= innerRadii[low] ? low : NO_RING;
+    }
+
+    /**
+     * @return returns the shortest signed turn, in degrees from -180 to 180, from one angle to
+     * another, both within [0, 360]
+     */
+    public static int shortestDelta(int fromDegrees, int toDegrees) {
+        int delta = toDegrees - fromDegrees;
+        if (delta > 180) {
+            delta -= 360;
+        } else if (delta < -180) {
+            delta += 360;
+        }
+        return delta;
+    }
+}
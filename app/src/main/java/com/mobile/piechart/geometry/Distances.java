@@ -0,0 +1,39 @@
+package com.mobile.piechart.geometry;
+
+/**
+ * @author David Castillo Fuentes
+ * Distance checks without square roots: comparing squared distances against squared radii gives
+ * the same answer as comparing the distances, for non negative radii.
+ */
+public final class Distances {
+
+    private Distances() {
+    }
+
+    /**
+     * @return returns the squared distance between (x1, y1) and (x2, y2)
+     */
+    public static float distanceSquared(float x1, float y1, float x2, float y2) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * @return returns true if the point (x, y) is closer than the given radius to the given center
+     */
+    public static boolean isInsideCircle(float x, float y, float centerX, float centerY,
+                                         float radius) {
+        return distanceSquared(x, y, centerX, centerY) < radius * radius;
+    }
+
+    /**
+     * @return returns true if the point (x, y) is within the ring between the given radii, both
+     * edges included
+     */
+    public static boolean isInsideRing(float x, float y, float centerX, float centerY,
+                                       float innerRadius, float outerRadius) {
+        float distance = distanceSquared(x, y, centerX, centerY);
+        return distance >= innerRadius * innerRadius && distance <= outerRadius * outerRadius;
+    }
+}
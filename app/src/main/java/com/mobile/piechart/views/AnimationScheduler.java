@@ -0,0 +1,84 @@
+package com.mobile.piechart.views;
+
+import android.view.View;
+
+import com.mobile.piechart.animation.Pausable;
+
+/**
+ * @author David Castillo Fuentes
+ * Pauses the animations of a view while it can't be seen (not attached, hidden, or its window is
+ * hidden because the activity was stopped) and resumes them as soon as it can.
+ *
+ * The owner view MUST forward its attach & visibility callbacks to this class.
+ */
+public class AnimationScheduler {
+
+    private Pausable[] mAnimations = new Pausable[0];
+
+    private boolean mAttached;
+    private boolean mShown = true;
+    private boolean mWindowVisible = true;
+    private boolean mRunning = true;
+
+    /**
+     * Adds an animation to the scheduler, it is paused right away if the view can't be seen
+     */
+    public void add(Pausable animation) {
+        Pausable[] animations = new Pausable[mAnimations.length + 1];
+        System.arraycopy(mAnimations, 0, animations, 0, mAnimations.length);
+        animations[mAnimations.length] = animation;
+        mAnimations = animations;
+
+        if (!mRunning) {
+            animation.pause();
+        }
+        update();
+    }
+
+    public void onAttachedToWindow(View view) {
+        mAttached = true;
+        mShown = view.isShown();
+        mWindowVisible = view.getWindowVisibility() == View.VISIBLE;
+        update();
+    }
+
+    public void onDetachedFromWindow() {
+        mAttached = false;
+        update();
+    }
+
+    /**
+     * To be called from View.onVisibilityChanged(), which is also called when an ancestor changes
+     * its visibility
+     */
+    public void onVisibilityChanged(View view) {
+        mShown = view.isShown();
+        update();
+    }
+
+    public void onWindowVisibilityChanged(int visibility) {
+        mWindowVisible = visibility == View.VISIBLE;
+        update();
+    }
+
+    /**
+     * @return returns true when the view can be seen & its animations are running
+     */
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    private void update() {
+        boolean running = mAttached && mShown && mWindowVisible;
+        if (running == mRunning) return;
+        mRunning = running;
+
+        for (Pausable animation : mAnimations) {
+            if (running) {
+                animation.resume();
+            } else {
+                animation.pause();
+            }
+        }
+    }
+}
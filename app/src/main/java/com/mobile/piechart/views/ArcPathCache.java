@@ -0,0 +1,140 @@
+package com.mobile.piechart.views;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * @author David Castillo Fuentes
+ * Keeps the geometry of one arc per ring as a Path, so the renderer doesn't have to rebuild the
+ * arc on every frame. Angles are quantized to a configurable resolution, an arc is only rebuilt
+ * when its quantized start or sweep changes, which makes the steady state frames geometry free.
+ *
+ * The cache MUST be invalidated whenever the bounds of the rings change (the onLayout phase).
+ */
+public class ArcPathCache {
+
+    public static final float DEFAULT_ANGLE_RESOLUTION = 0.5f;
+    private static final float FULL_CIRCLE = 360f;
+
+    private float mAngleResolution = DEFAULT_ANGLE_RESOLUTION;
+
+    private Path[] mPaths = new Path[0];
+    private float[] mStartAngles = new float[0];
+    private float[] mSweepAngles = new float[0];
+    private boolean[] mValid = new boolean[0];
+
+    private long mHitCount;
+    private long mMissCount;
+
+    /**
+     * @param capacity number of arcs the cache can hold, existing arcs are kept
+     */
+    public void ensureCapacity(int capacity) {
+        int current = mPaths.length;
+        if (capacity <= current) return;
+
+        Path[] paths = new Path[capacity];
+        System.arraycopy(mPaths, 0, paths, 0, current);
+        for (int i = current; i < capacity; i++) {
+            paths[i] = new Path();
+        }
+        mPaths = paths;
+
+        float[] startAngles = new float[capacity];
+        System.arraycopy(mStartAngles, 0, startAngles, 0, current);
+        mStartAngles = startAngles;
+
+        float[] sweepAngles = new float[capacity];
+        System.arraycopy(mSweepAngles, 0, sweepAngles, 0, current);
+        mSweepAngles = sweepAngles;
+
+        boolean[] valid = new boolean[capacity];
+        System.arraycopy(mValid, 0, valid, 0, current);
+        mValid = valid;
+    }
+
+    /**
+     * Returns the path of the given arc, rebuilding it only if its quantized angles changed
+     *
+     * @param arc index of the arc (the ring)
+     * @param bounds bounds of the oval the arc belongs to
+     * @param startAngle where the arc begins, in degrees
+     * @param sweepAngle sweep of the arc, in degrees
+     * @return returns the cached path, owned by the cache
+     */
+    public Path getArc(int arc, RectF bounds, float startAngle, float sweepAngle) {
+        float start = quantize(startAngle);
+        float sweep = quantize(sweepAngle);
+
+        Path path = mPaths[arc];
+        if (mValid[arc] && mStartAngles[arc] == start && mSweepAngles[arc] == sweep) {
+            mHitCount++;
+            return path;
+        }
+
+        mMissCount++;
+        path.rewind();
+        if (sweep >= FULL_CIRCLE || sweep <= -FULL_CIRCLE) {
+            path.addOval(bounds, sweep > 0 ? Path.Direction.CW : Path.Direction.CCW);
+        } else if (sweep != 0) {
+            path.addArc(bounds, start, sweep);
+        }
+        mStartAngles[arc] = start;
+        mSweepAngles[arc] = sweep;
+        mValid[arc] = true;
+        return path;
+    }
+
+    /**
+     * Drops every cached arc, they will be rebuilt the next time they are requested
+     */
+    public void invalidate() {
+        for (int i = 0; i < mValid.length; i++) {
+            mValid[i] = false;
+        }
+    }
+
+    /**
+     * @param angleResolution the angles are rounded to multiples of this value (in degrees) before
+     *                        building the arcs, 0 disables the quantization
+     */
+    public void setAngleResolution(float angleResolution) {
+        if (angleResolution < 0) {
+            throw new IllegalArgumentException("Invalid angle resolution :: " + angleResolution);
+        }
+        mAngleResolution = angleResolution;
+        invalidate();
+    }
+
+    public float getAngleResolution() {
+        return mAngleResolution;
+    }
+
+    /**
+     * @return returns how many times an arc was served from the cache
+     */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return returns how many times an arc had to be rebuilt
+     */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    public void resetStats() {
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    /**
+     * @return returns the angle the arcs are built with for the given one, two angles with the
+     * same quantized value draw the same arc
+     */
+    float quantize(float angle) {
+        if (mAngleResolution == 0) return angle;
+        return Math.round(angle / mAngleResolution) * mAngleResolution;
+    }
+}
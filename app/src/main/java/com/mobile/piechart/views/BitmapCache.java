@@ -0,0 +1,395 @@
+package com.mobile.piechart.views;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @author David Castillo Fuentes
+ * Process wide cache of the bitmaps the views draw, resized to the size they are drawn at. Entries
+ * are keyed by (resource, width, height, config), so every dial of the same size shares the same
+ * bitmaps and a rotation back to a size seen before doesn't decode anything.
+ *
+ * The cache is bounded by the number of bytes it holds and evicts the least recently used
+ * bitmaps first. Bitmaps handed out by the cache are shared and MUST never be recycled.
+ *
+ * Misses are decoded on a background thread and delivered on the UI thread. Requests for a bitmap
+ * that is already being decoded wait for that decode instead of starting another one.
+ *
+ * Resources are decoded straight at the requested size: the decoder subsamples the asset by a
+ * power of two & scales the rest of the way through inDensity/inTargetDensity, so the full size
+ * asset is never allocated and nothing is scaled after the decode. The density scaling keeps the
+ * aspect ratio of the asset, so the decoded height may be a pixel off the requested one & views
+ * size their drawables to the bitmap they get. Bitmaps returned by load() are counted as in use until release() is
+ * called, and evicted bitmaps nobody uses anymore are kept in a small pool to be decoded into
+ * (inBitmap) instead of allocating new ones.
+ */
+public final class BitmapCache {
+
+    // Portion of the heap the cache can take
+    private static final int HEAP_FRACTION = 16;
+    // Max number of evicted bitmaps kept to be reused
+    private static final int MAX_REUSABLE_BITMAPS = 3;
+
+    public interface OnBitmapLoadedListener {
+
+        /**
+         * Called on the UI thread when a bitmap requested with load() is ready
+         *
+         * @param resId
+         *            The resource that was requested
+         * @param bitmap
+         *            The decoded bitmap, or null if the resource couldn't be decoded
+         */
+        void onBitmapLoaded(int resId, int width, int height, Bitmap bitmap);
+
+    }
+
+    private static BitmapCache sInstance;
+
+    // Every field but the executor is only touched from the UI thread
+    private final LruCache<Key, Entry> mCache;
+    private final Executor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    // Decodes in progress & the listeners waiting for them
+    private final HashMap<Key, ArrayList<OnBitmapLoadedListener>> mPending =
+            new HashMap<Key, ArrayList<OnBitmapLoadedListener>>();
+    // Entries whose bitmap is in use by a view
+    private final IdentityHashMap<Bitmap, Entry> mInUse = new IdentityHashMap<Bitmap, Entry>();
+    // Evicted bitmaps nobody uses, to be decoded into
+    private final Bitmap[] mReusable = new Bitmap[MAX_REUSABLE_BITMAPS];
+    private int mReusableCount;
+    private int mReuseCount;
+    // Config each resource was really decoded with. The decoder only honours RGB_565 for opaque
+    // images, the ones with alpha come out as ARGB_8888 whatever config is asked for
+    private final HashMap<Integer, Bitmap.Config> mDecodedConfigs =
+            new HashMap<Integer, Bitmap.Config>();
+
+    private BitmapCache(int maxBytes, Executor executor) {
+        mCache = new LruCache<Key, Entry>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Entry entry) {
+                return entry.mBitmap.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Key key, Entry oldEntry, Entry newEntry) {
+                oldEntry.mRemoved = true;
+                if (oldEntry.mUseCount == 0) {
+                    addReusable(oldEntry.mBitmap);
+                }
+            }
+        };
+        mExecutor = executor;
+    }
+
+    /**
+     * @return returns the cache shared by every view of the process
+     */
+    public static synchronized BitmapCache getInstance() {
+        if (sInstance == null) {
+            int maxBytes = (int) Math.min(Integer.MAX_VALUE,
+                    Runtime.getRuntime().maxMemory() / HEAP_FRACTION);
+            sInstance = new BitmapCache(maxBytes, newDecodeExecutor());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the cached bitmap of the given resource at the given size, or decodes it in the
+     * background if it isn't in the cache. MUST be called from the UI thread
+     *
+     * @param listener notified on the UI thread once the bitmap is decoded, only when the bitmap
+     *                 wasn't in the cache
+     * @return returns the cached bitmap, or null if it has to be decoded first. A returned bitmap
+     * MUST be given back with release() once it is not drawn anymore
+     */
+    public Bitmap load(final Resources resources, final int resId, final int width,
+                       final int height, final Bitmap.Config config,
+                       OnBitmapLoadedListener listener) {
+        final Key key = new Key(resId, width, height, config);
+        Entry entry = mCache.get(key);
+        if (entry != null) {
+            if (entry.mUseCount++ == 0) {
+                mInUse.put(entry.mBitmap, entry);
+            }
+            return entry.mBitmap;
+        }
+
+        ArrayList<OnBitmapLoadedListener> listeners = mPending.get(key);
+        if (listeners != null) {
+            // Already being decoded
+            if (!listeners.contains(listener)) {
+                listeners.add(listener);
+            }
+            return null;
+        }
+        listeners = new ArrayList<OnBitmapLoadedListener>();
+        listeners.add(listener);
+        mPending.put(key, listeners);
+
+        // A pixel of room for the rounding of the decoded height
+        final Bitmap reusable = takeReusable(width * (height + 1)
+                * bytesPerPixel(mDecodedConfigs.get(resId)));
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap decoded = null;
+                try {
+                    decoded = decode(resources, resId, width, height, config, reusable);
+                } catch (OutOfMemoryError e) {
+                    // Delivered as null, the view keeps its placeholder
+                }
+                final Bitmap result = decoded;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (result != null) {
+                            mDecodedConfigs.put(resId, result.getConfig());
+                            mCache.put(key, new Entry(result));
+                        }
+                        ArrayList<OnBitmapLoadedListener> waiting = mPending.remove(key);
+                        if (waiting == null) return;
+                        for (int i = 0; i < waiting.size(); i++) {
+                            waiting.get(i).onBitmapLoaded(resId, width, height, result);
+                        }
+                    }
+                });
+            }
+        });
+        return null;
+    }
+
+    /**
+     * Gives back a bitmap returned by load(), once evicted & released it can be decoded into
+     */
+    public void release(Bitmap bitmap) {
+        Entry entry = mInUse.get(bitmap);
+        if (entry == null) return;
+        if (--entry.mUseCount == 0) {
+            mInUse.remove(bitmap);
+            if (entry.mRemoved) {
+                addReusable(bitmap);
+            }
+        }
+    }
+
+    /**
+     * Drops every bitmap of the cache
+     */
+    public void evictAll() {
+        mCache.evictAll();
+    }
+
+    /**
+     * @return returns the number of requests served from the cache
+     */
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * @return returns the number of requests that weren't in the cache
+     */
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * @return returns the number of bitmaps dropped to keep the cache within its size
+     */
+    public int getEvictionCount() {
+        return mCache.evictionCount();
+    }
+
+    /**
+     * @return returns the number of bytes held by the cache
+     */
+    public int getSize() {
+        return mCache.size();
+    }
+
+    /**
+     * @return returns the max number of bytes the cache can hold
+     */
+    public int getMaxSize() {
+        return mCache.maxSize();
+    }
+
+    /**
+     * @return returns the number of decodes that were given an evicted bitmap to decode into
+     */
+    public int getReuseCount() {
+        return mReuseCount;
+    }
+
+    /**
+     * Blocks until every decode submitted so far is done. Their results are still delivered
+     * through the UI thread, once it runs its posted tasks. For tests only
+     */
+    void waitForDecodes() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        // The decode thread runs its tasks in order
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        latch.await();
+    }
+
+    /**
+     * Decodes the given resource straight at the given width, with a single allocation. The height
+     * follows the aspect ratio of the asset, it can be off the given one by a rounding pixel
+     *
+     * @param reusable mutable bitmap to decode into, or null to allocate a new one
+     * @return returns the decoded bitmap, or null if the resource couldn't be decoded
+     */
+    static Bitmap decode(Resources resources, int resId, int width, int height,
+                         Bitmap.Config config, Bitmap reusable) {
+        // Size of the asset, without the density scaling of its bucket
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(resources, resId, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        // Subsample by the biggest power of two that keeps the asset over the target size
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width
+                && options.outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+
+        // Width the subsampled asset really has, the decoder may round it either way
+        options.inSampleSize = sampleSize;
+        BitmapFactory.decodeResource(resources, resId, options);
+        if (options.outWidth <= 0) return null;
+
+        // And let the decoder scale the rest of the way, by inTargetDensity / inDensity, which
+        // lands exactly on the target width
+        options.inJustDecodeBounds = false;
+        options.inScaled = true;
+        options.inDensity = options.outWidth;
+        options.inTargetDensity = width;
+        options.inPreferredConfig = config;
+        options.inMutable = true;
+        options.inBitmap = reusable;
+
+        try {
+            return BitmapFactory.decodeResource(resources, resId, options);
+        } catch (IllegalArgumentException e) {
+            // The reusable bitmap doesn't fit this decode
+            options.inBitmap = null;
+            return BitmapFactory.decodeResource(resources, resId, options);
+        }
+    }
+
+    private void addReusable(Bitmap bitmap) {
+        if (!bitmap.isMutable() || bitmap.isRecycled()) return;
+        if (mReusableCount == MAX_REUSABLE_BITMAPS) {
+            // Drop the oldest one
+            System.arraycopy(mReusable, 1, mReusable, 0, MAX_REUSABLE_BITMAPS - 1);
+            mReusableCount--;
+        }
+        mReusable[mReusableCount++] = bitmap;
+    }
+
+    /**
+     * @return returns the smallest reusable bitmap with room for the given number of bytes, or null
+     */
+    private Bitmap takeReusable(int bytes) {
+        int best = -1;
+        for (int i = 0; i < mReusableCount; i++) {
+            int size = mReusable[i].getAllocationByteCount();
+            if (size >= bytes && (best == -1 || size < mReusable[best].getAllocationByteCount())) {
+                best = i;
+            }
+        }
+        if (best == -1) return null;
+
+        Bitmap bitmap = mReusable[best];
+        System.arraycopy(mReusable, best + 1, mReusable, best, mReusableCount - best - 1);
+        mReusable[--mReusableCount] = null;
+        mReuseCount++;
+        return bitmap;
+    }
+
+    /**
+     * @param config config of the decoded bitmap, or null if unknown yet
+     */
+    private static int bytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) return 2;
+        if (config == Bitmap.Config.ALPHA_8) return 1;
+        return 4;
+    }
+
+    private static ExecutorService newDecodeExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "BitmapCache");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    private static final class Entry {
+        private final Bitmap mBitmap;
+        // Number of load() calls not released yet
+        private int mUseCount;
+        // True once the entry is out of the cache
+        private boolean mRemoved;
+
+        Entry(Bitmap bitmap) {
+            mBitmap = bitmap;
+        }
+    }
+
+    private static final class Key {
+        private final int mResId;
+        private final int mWidth;
+        private final int mHeight;
+        private final Bitmap.Config mConfig;
+
+        Key(int resId, int width, int height, Bitmap.Config config) {
+            mResId = resId;
+            mWidth = width;
+            mHeight = height;
+            mConfig = config;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return mResId == key.mResId && mWidth == key.mWidth && mHeight == key.mHeight
+                    && mConfig == key.mConfig;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mResId;
+            result = 31 * result + mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + (mConfig != null ? mConfig.hashCode() : 0);
+            return result;
+        }
+    }
+}
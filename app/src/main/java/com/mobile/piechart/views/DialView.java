@@ -3,23 +3,36 @@ package com.mobile.piechart.views;
 import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.content.res.TypedArray;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.LinearGradient;
 import android.graphics.Matrix;
 import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RadialGradient;
+import android.graphics.Rect;
 import android.graphics.RectF;
+import android.graphics.Shader;
 import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.os.Vibrator;
 import android.support.v4.content.ContextCompat;
 import android.util.AttributeSet;
+import android.util.Log;
 import android.util.TypedValue;
 import android.view.MotionEvent;
 import android.view.View;
 
 import com.mobile.piechart.R;
+import com.mobile.piechart.animation.FrameClock;
+import com.mobile.piechart.geometry.ChartLayout;
+import com.mobile.piechart.geometry.Distances;
+import com.mobile.piechart.geometry.FastTrig;
+
+import java.util.concurrent.Executor;
 
 /**
  * @author David Castillo Fuentes
@@ -28,9 +41,51 @@ import com.mobile.piechart.R;
  * opposite side.
  *
  * If the Vibrator is available in your device & proper permissions are added in your manifest
- * file and granted by the user, it will vibrate for each minute you add/remove from the selector
+ * file and granted by the user, it will vibrate for each minute you add/remove from the selector.
+ * The ticks are played by a HapticScheduler, which caps their rate during fast spins and can fall
+ * back to the haptic feedback of the view when the Vibrator is not available
+ *
+ * The images of the dial are taken from the process wide BitmapCache, already resized to the size
+ * they are drawn at. Images that aren't cached yet are decoded in the background and a placeholder
+ * is drawn until they are ready.
+ *
+ * In RENDER_MODE_VECTOR no image is used at all: the ticks, the oval and the knob are drawn with
+ * paths & paints whose geometry is calculated in the onLayout phase (the 60 ticks are a single
+ * drawLines() call), so the memory of the dial doesn't depend on the screen density.
+ *
+ * In RENDER_MODE_BITMAP the face of the dial (labels, lines & oval) is recorded once into a cached
+ * bitmap layer, rebuilt only when the layout or the images change, so every frame of a drag just
+ * blits the layer and draws the rotated knob on top of it. RENDER_MODE_VECTOR draws its face
+ * directly, a handful of draw calls, and keeps no layer. A drag only invalidates the area of the
+ * knob, and only when the knob reaches another minute.
+ *
+ * Every touch sample batched into a MotionEvent is processed, in order & without allocating, and
+ * the angular velocity of the drag is tracked so that, when enabled with setFlingEnabled(), the
+ * knob keeps turning after a fast drag. The fling is integrated in degrees on the shared
+ * FrameClock, so the same flick decelerates the same way on every screen density.
+ *
+ * The listener is called on every touch event by default. setDispatchMode() can coalesce the
+ * calls to one per frame, and setDispatchExecutor() can move them off the UI thread.
+ *
+ * With setPredictionEnabled() the knob is drawn ahead of the last touch sample, where the finger
+ * should be once the frame is on screen, and back on the last sample once the finger stops. The
+ * time reported is always the true one. getKnobLagDegrees() & getKnobLagMillis() measure how far
+ * behind the finger the knob is drawn.
+ *
+ * Frame metrics (draw times, invalidations, touches, listener latency & bitmap bytes) can be
+ * recorded by giving the dial a ViewMetrics with setMetrics(). onLayout, onDraw & onTouchEvent
+ * are always wrapped in android.os.Trace sections.
  */
 public class DialView extends View {
+
+    public static final String LOG = DialView.class.getName();
+    private static final String TRACE_LAYOUT = "DialView#onLayout";
+    private static final String TRACE_DRAW = "DialView#onDraw";
+    private static final String TRACE_TOUCH = "DialView#onTouchEvent";
+    public static final int RENDER_MODE_BITMAP = 0;
+    public static final int RENDER_MODE_VECTOR = 1;
+    public static final int DISPATCH_MODE_IMMEDIATE = 0;
+    public static final int DISPATCH_MODE_COALESCED = 1;
     private static final int MINUTES_PER_HOUR = 60;
     private static final int DEFAULT_TEXT_SIZE = 20;
     private static final int MIN_ANGLE_REQUIRED = -90;
@@ -39,8 +94,41 @@ public class DialView extends View {
     private static final int INVALID_PROGRESS_VALUE = -1;
     private static final int MINUTE_VALUE_TO_DEGREES_STEP_SIZE = 6;
     private static final float BASE_STROKE_WIDTH_PERCENTAGE = 0.01f;
+    private static final int PLACEHOLDER_ALPHA_VALUE = 40;
+    // Vector dial, radii as a portion of the lines (ticks) or knob radius
+    private static final float MINOR_TICK_INNER_RADIUS = 0.93f;
+    private static final float MAJOR_TICK_INNER_RADIUS = 0.88f;
+    private static final float TICK_STROKE_WIDTH = 0.4f;
+    private static final float MARKER_INNER_RADIUS = 0.62f;
+    private static final float MARKER_OUTER_RADIUS = 0.85f;
+    private static final float MARKER_HALF_HEIGHT = 0.027f;
+    // Extra pixels invalidated around the knob marker or image, for the antialiasing of its edges
+    private static final float DIRTY_MARGIN = 1f;
+    // Touch samples kept to measure the angular velocity, and the time span measured
+    private static final int VELOCITY_SAMPLES = 16;
+    private static final long VELOCITY_WINDOW_MILLIS = 100;
+    // Slowest drag, in degrees per second, that starts a fling
+    private static final float MIN_FLING_VELOCITY = 90f;
+    // Exponential decay rate of the fling velocity, per second, & the velocity the fling stops at
+    private static final float FLING_FRICTION = 4f;
+    private static final float FLING_STOP_VELOCITY = 5f;
+    private static final float NANOS_PER_SECOND = 1e9f;
+    // Knob prediction, time from an input event to its frame on screen & max extrapolation
+    private static final long DEFAULT_PREDICTION_LOOKAHEAD_MILLIS = 16;
+    private static final long MAX_PREDICTION_MILLIS = 50;
+    // Time without touch samples, about one input interval, after which the finger has stopped
+    private static final long PREDICTION_IDLE_MILLIS = 20;
+    // Weight of every new sample in the moving average of the knob lag
+    private static final float LAG_SMOOTHING = 0.1f;
+    private static final int TICK_COLOR = Color.argb(DEFAULT_ALPHA_VALUE, 160, 160, 160);
+    private static final int OVAL_LIGHT_COLOR = Color.WHITE;
+    private static final int OVAL_DARK_COLOR = Color.argb(DEFAULT_ALPHA_VALUE, 236, 236, 236);
+    private static final int SHADOW_COLOR = Color.argb(30, 0, 0, 0);
+    private static final int KNOB_RING_COLOR = Color.argb(DEFAULT_ALPHA_VALUE, 232, 232, 232);
+    private static final int MARKER_COLOR = Color.argb(DEFAULT_ALPHA_VALUE, 27, 127, 214);
 
     private Paint mPaint;
+    private Paint mPlaceholderPaint;
 
     private float mTextSize;
     private float mBaseSize;
@@ -53,7 +141,18 @@ public class DialView extends View {
 
     private final int[] minutes = {30, 45, 60, 15};
 
+    // Quadrant labels (every 15 minutes) & their positions, calculated in the onLayout phase
+    private final String[] mLabels = new String[minutes.length];
+    private final float[] mLabelX = new float[minutes.length];
+    private final float[] mLabelY = new float[minutes.length];
+
     private long mCurrentAngle = MIN_ANGLE_REQUIRED;
+    // Quantized angle of the knob the last time it was invalidated
+    private long mKnobAngle = MIN_ANGLE_REQUIRED;
+    private final Rect mDirtyRect = new Rect();
+    // Rotation of the knob image & its rotated bounds, to invalidate the area it covers
+    private final Matrix mKnobMatrix = new Matrix();
+    private final RectF mKnobRect = new RectF();
     private long mCurrentTime;
     private long mVibrator1;
     private long mVibrator2;
@@ -67,18 +166,80 @@ public class DialView extends View {
     private int mAngle;
     private int mDiff;
 
-    private Drawable mLinesImage;
-    private Drawable mOvalImage;
-    private Drawable mKnobImage;
+    // Angle dragged since the last DOWN, not clamped, & its recent history to measure the velocity
+    private float mTrackedAngle;
+    private final long[] mVelocitySampleTimes = new long[VELOCITY_SAMPLES];
+    private final float[] mVelocitySampleAngles = new float[VELOCITY_SAMPLES];
+    private int mVelocitySampleIndex;
+    private int mVelocitySampleCount;
+
+    private boolean mFlingEnabled;
+
+    // Prediction of the knob position at display time, the committed angle is never predicted
+    private boolean mPredictionEnabled;
+    private long mPredictionLookaheadMillis = DEFAULT_PREDICTION_LOOKAHEAD_MILLIS;
+    private boolean mDragging;
+    private long mLastSampleTime;
+    private Runnable mSettleKnobRunnable;
+    // Angle the knob was last drawn at by onDraw, & how far it is from the finger on average
+    private float mRenderedAngle = MIN_ANGLE_REQUIRED;
+    private float mKnobLagDegrees;
+    // Fling state, in degrees & degrees per second
+    private boolean mFlinging;
+    private float mFlingAngle;
+    private float mFlingVelocity;
+    private long mFlingFrameNanos;
+    private FrameClock.FrameCallback mFlingCallback;
+
+    private BitmapDrawable mLinesImage;
+    private BitmapDrawable mOvalImage;
+    private BitmapDrawable mKnobImage;
+    private Bitmap.Config mImageConfig = Bitmap.Config.ARGB_8888;
+
+    // Bounds of the images, calculated in the onLayout phase
+    private final float[] mLayoutBounds = new float[4];
+    private Rect mLinesBounds = new Rect();
+    private Rect mOvalBounds = new Rect();
+    private Rect mKnobBounds = new Rect();
+    private BitmapCache.OnBitmapLoadedListener mOnBitmapLoadedListener;
+
+    private int mRenderMode = RENDER_MODE_BITMAP;
+
+    // Vector dial, calculated in the onLayout phase
+    private final float[] mTickPoints = new float[MINUTES_PER_HOUR * 4];
+    private float mOvalRadius;
+    private float mShadowRadius;
+    private float mShadowOffset;
+    private float mKnobRingRadius;
+    private final RectF mMarkerRect = new RectF();
+    private final Path mMarkerPath = new Path();
+    private Paint mTickPaint;
+    private Paint mOvalPaint;
+    private Paint mShadowPaint;
+    private Paint mKnobRingPaint;
+    private Paint mMarkerPaint;
+
+    // Cached layer with the dial face, everything but the knob
+    private Bitmap mStaticLayer;
+    private Canvas mStaticLayerCanvas;
+    private boolean mStaticLayerDirty = true;
 
     private Vibrator mVibrator;
     private boolean mVibratorPermissionEnabled;
-    private OnDialViewChangeListener mOnDialViewChangeListener;
+    private HapticScheduler mHapticScheduler;
+    private final ProgressDispatcher mProgressDispatcher = new ProgressDispatcher(this);
+
+    // Opt-in frame metrics, null when not recorded
+    private ViewMetrics mMetrics;
+    // Bytes of the bitmaps held by the dial, as last reported to the metrics
+    private long mBitmapBytes;
 
     public interface OnDialViewChangeListener {
 
         /**
-         * Client can be notified when the progress level has changed.
+         * Client can be notified when the progress level has changed. It is called on the UI
+         * thread, or on the executor given to setDispatchExecutor(), where the view MUST not be
+         * touched.
          *
          * @param dialView
          *            The DialView whose progress has changed
@@ -105,6 +266,15 @@ public class DialView extends View {
     }
 
     private void init(AttributeSet attrs, int defStyle) {
+        // Load attributes
+        try {
+            TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.DialView, defStyle, 0);
+            mRenderMode = a.getInt(R.styleable.DialView_renderMode, RENDER_MODE_BITMAP);
+            a.recycle();
+        } catch (Exception e) {
+            Log.i(LOG, "Failed to load initial parameters :: " + e);
+        }
+
         mTextSize = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DEFAULT_TEXT_SIZE,
                 getResources().getDisplayMetrics());
         mTextColor = Color.argb(DEFAULT_ALPHA_VALUE, 138, 138, 138);
@@ -116,49 +286,320 @@ public class DialView extends View {
         mPaint.setTextSize(mTextSize);
         mPaint.setColor(mTextColor);
 
+        for (int i = 0; i < minutes.length; i++) {
+            mLabels[i] = Integer.toString(minutes[i]);
+        }
+
+        mPlaceholderPaint = new Paint();
+        mPlaceholderPaint.setAntiAlias(true);
+        mPlaceholderPaint.setStyle(Paint.Style.STROKE);
+        mPlaceholderPaint.setColor(Color.argb(PLACEHOLDER_ALPHA_VALUE, 0, 0, 0));
+
+        mTickPaint = new Paint();
+        mTickPaint.setAntiAlias(true);
+        mTickPaint.setStyle(Paint.Style.STROKE);
+        mTickPaint.setColor(TICK_COLOR);
+        mOvalPaint = new Paint();
+        mOvalPaint.setAntiAlias(true);
+        mShadowPaint = new Paint();
+        mShadowPaint.setAntiAlias(true);
+        mKnobRingPaint = new Paint();
+        mKnobRingPaint.setAntiAlias(true);
+        mKnobRingPaint.setStyle(Paint.Style.STROKE);
+        mKnobRingPaint.setColor(KNOB_RING_COLOR);
+        mMarkerPaint = new Paint();
+        mMarkerPaint.setAntiAlias(true);
+        mMarkerPaint.setColor(MARKER_COLOR);
+
+        mOnBitmapLoadedListener = new BitmapCache.OnBitmapLoadedListener() {
+            @Override
+            public void onBitmapLoaded(int resId, int width, int height, Bitmap bitmap) {
+                // Bitmaps of an older layout are picked from the cache the next time that size
+                // is laid out, the current ones are already cached at this point
+                if (bitmap == null) return;
+                if (loadMissingImages()) {
+                    invalidateStaticLayer();
+                }
+            }
+        };
+
+        mFlingCallback = new FrameClock.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                if (!mFlinging) return;
+                float dt = (frameTimeNanos - mFlingFrameNanos) / NANOS_PER_SECOND;
+                mFlingFrameNanos = frameTimeNanos;
+                if (dt > 0) {
+                    // Exact integral of v * e^(-friction * t) over the frame
+                    float decay = (float) Math.exp(-FLING_FRICTION * dt);
+                    mFlingAngle += mFlingVelocity * (1f - decay) / FLING_FRICTION;
+                    mFlingVelocity *= decay;
+                }
+
+                float clamped = Math.max(MIN_ANGLE_REQUIRED,
+                        Math.min(mFlingAngle, MAX_ANGLE_REQUIRED));
+                long angle = (long) clamped;
+                if (angle != mCurrentAngle) {
+                    mCurrentAngle = angle;
+                    onCurrentAngleChanged();
+                }
+                // Stops once slow enough or at a limit of the dial
+                if (Math.abs(mFlingVelocity) < FLING_STOP_VELOCITY || clamped != mFlingAngle) {
+                    mFlinging = false;
+                    return;
+                }
+                FrameClock.getInstance().postFrameCallback(this);
+            }
+        };
+
+        mSettleKnobRunnable = new Runnable() {
+            @Override
+            public void run() {
+                // No samples since the last event, the finger stopped, back to the true angle
+                invalidateKnob();
+            }
+        };
+
         int permissionCheck = ContextCompat.checkSelfPermission(getContext(),
                 Manifest.permission.VIBRATE);
         mVibratorPermissionEnabled = permissionCheck == PackageManager.PERMISSION_GRANTED;
         if (mVibratorPermissionEnabled) {
             mVibrator = (Vibrator) getContext().getSystemService(Context.VIBRATOR_SERVICE);
         }
+        mHapticScheduler = new HapticScheduler(this, mVibrator);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        Point point;
-        int index = 0;
+        Trace.beginSection(TRACE_DRAW);
+        final ViewMetrics metrics = mMetrics;
+        final long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            drawDial(canvas);
+        } finally {
+            if (metrics != null) {
+                metrics.recordDraw(startNanos, System.nanoTime());
+            }
+            Trace.endSection();
+        }
+    }
 
-        // Draw Texts for Minutes
-        for (int i = 1; i <= MINUTES_PER_HOUR; i++) {
-            if (i % 15 == 0) {
-                // Get coordinates for the quadrants (every 15 minutes)
-                point = buildCoordinateXY(mMinutesRadio, centerX, centerY,
-                        MINUTE_VALUE_TO_DEGREES_STEP_SIZE * i);
-                // Draw quadrant time (every 15 minutes)
-                canvas.drawText(Integer.toString(minutes[index++]), point.x, point.y +
-                        mTextSize / 3, mPaint);
+    private void drawDial(Canvas canvas) {
+        // Draw the dial face, everything but the knob
+        if (mRenderMode == RENDER_MODE_VECTOR) {
+            // Cheaper to draw than a full view layer is to keep, whatever the density
+            drawLabels(canvas);
+            drawVectorFace(canvas);
+        } else {
+            if (mStaticLayerDirty) {
+                rebuildStaticLayer();
+            }
+            if (mStaticLayer != null) {
+                canvas.drawBitmap(mStaticLayer, 0, 0, null);
             }
         }
 
+        // Draw Minutes Indicator on top of the face
+        canvas.save();
+        mRenderedAngle = mKnobAngle;
+        canvas.rotate(mKnobAngle, centerX, centerY);
+        if (mRenderMode == RENDER_MODE_VECTOR) {
+            canvas.drawPath(mMarkerPath, mMarkerPaint);
+        } else if (mKnobImage != null) {
+            mKnobImage.draw(canvas);
+        }
+        canvas.restore();
+    }
+
+    /**
+     * Records the dial face (labels, lines & oval) of RENDER_MODE_BITMAP into the static layer. The
+     * layer bitmap is reused as long as the size of the view doesn't change
+     */
+    private void rebuildStaticLayer() {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) return;
+
+        if (mStaticLayer == null || mStaticLayer.getWidth() != width
+                || mStaticLayer.getHeight() != height) {
+            releaseStaticLayer();
+            mStaticLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mStaticLayerCanvas = new Canvas(mStaticLayer);
+            updateBitmapBytes();
+        } else {
+            mStaticLayer.eraseColor(Color.TRANSPARENT);
+        }
+
+        final Canvas canvas = mStaticLayerCanvas;
+        drawLabels(canvas);
+        drawImagesFace(canvas);
+
+        mStaticLayerDirty = false;
+    }
+
+    private void drawLabels(Canvas canvas) {
+        // Draw Texts for Minutes
+        for (int i = 0; i < mLabels.length; i++) {
+            canvas.drawText(mLabels[i], mLabelX[i], mLabelY[i], mPaint);
+        }
+    }
+
+    private void releaseStaticLayer() {
+        if (mStaticLayer != null) {
+            mStaticLayer.recycle();
+            mStaticLayer = null;
+            mStaticLayerCanvas = null;
+            updateBitmapBytes();
+        }
+        mStaticLayerDirty = true;
+    }
+
+    /**
+     * Reports to the metrics the change in the bytes of the bitmaps held by the dial, the static
+     * layer & the images taken from the cache
+     */
+    private void updateBitmapBytes() {
+        long bytes = mStaticLayer != null ? mStaticLayer.getAllocationByteCount() : 0;
+        bytes += getImageBytes(mLinesImage) + getImageBytes(mOvalImage)
+                + getImageBytes(mKnobImage);
+        if (mMetrics != null) {
+            mMetrics.addBitmapBytes(bytes - mBitmapBytes);
+        }
+        mBitmapBytes = bytes;
+    }
+
+    private static long getImageBytes(BitmapDrawable image) {
+        return image != null ? image.getBitmap().getAllocationByteCount() : 0;
+    }
+
+    /**
+     * Marks the static layer as outdated, it will be rebuilt on the next draw pass
+     */
+    private void invalidateStaticLayer() {
+        mStaticLayerDirty = true;
+        invalidate();
+    }
+
+    /**
+     * Draws the face of the dial with the images taken from the cache
+     */
+    private void drawImagesFace(Canvas canvas) {
+        // Draw a placeholder while the images are being decoded
+        if (mLinesImage == null || mOvalImage == null) {
+            canvas.drawCircle(centerX, centerY, mRadioKnob, mPlaceholderPaint);
+        }
+
         // Draw Lines Image
-        mLinesImage.draw(canvas);
+        if (mLinesImage != null) {
+            mLinesImage.draw(canvas);
+        }
 
         // Draw Oval Image
-        mOvalImage.draw(canvas);
+        if (mOvalImage != null) {
+            mOvalImage.draw(canvas);
+        }
+    }
 
-        // Draw Minutes Indicator Image
-        canvas.save();
-        canvas.rotate(normalizeCurrentAngle(), centerX, centerY);
-        mKnobImage.draw(canvas);
-        canvas.restore();
+    /**
+     * Draws the face of the dial with the geometry calculated in layoutVectorDial()
+     */
+    private void drawVectorFace(Canvas canvas) {
+        // Draw the 60 ticks at once
+        canvas.drawLines(mTickPoints, mTickPaint);
+
+        // Draw the oval over its shadow
+        canvas.drawCircle(centerX + mShadowOffset, centerY + mShadowOffset, mShadowRadius,
+                mShadowPaint);
+        canvas.drawCircle(centerX, centerY, mOvalRadius, mOvalPaint);
+
+        // Draw the ring of the knob, only its marker rotates
+        canvas.drawCircle(centerX, centerY, mKnobRingRadius, mKnobRingPaint);
+    }
+
+    /**
+     * Invalidates the area covered by the knob before & after the current angle changed, only when
+     * the change moves the knob to another minute
+     */
+    private void invalidateKnob() {
+        long angle = normalizeAngle((long) getKnobRenderAngle());
+        if (angle == mKnobAngle) return;
+        long previousAngle = mKnobAngle;
+        mKnobAngle = angle;
+
+        if (mRenderMode == RENDER_MODE_VECTOR) {
+            // Only the marker moves, from its old position to the new one
+            mDirtyRect.setEmpty();
+            unionMarkerBounds(mDirtyRect, previousAngle);
+            unionMarkerBounds(mDirtyRect, angle);
+            invalidate(mDirtyRect);
+        } else {
+            // The whole image rotates, its corners reach past its unrotated bounds
+            mDirtyRect.setEmpty();
+            unionKnobBounds(mDirtyRect, previousAngle);
+            unionKnobBounds(mDirtyRect, angle);
+            invalidate(mDirtyRect);
+        }
+    }
+
+    /**
+     * Adds the bounds of the knob image rotated by the given angle to the given rect
+     */
+    private void unionKnobBounds(Rect rect, long angle) {
+        // The image is drawn a pixel off its layout bounds at most, its own bounds once loaded
+        mKnobRect.set(mKnobImage != null ? mKnobImage.getBounds() : mKnobBounds);
+        mKnobMatrix.setRotate(angle, centerX, centerY);
+        mKnobMatrix.mapRect(mKnobRect);
+        rect.union((int) Math.floor(mKnobRect.left - DIRTY_MARGIN),
+                (int) Math.floor(mKnobRect.top - DIRTY_MARGIN),
+                (int) Math.ceil(mKnobRect.right + DIRTY_MARGIN),
+                (int) Math.ceil(mKnobRect.bottom + DIRTY_MARGIN));
+    }
+
+    /**
+     * Adds the bounds of the knob marker rotated by the given angle to the given rect
+     */
+    private void unionMarkerBounds(Rect rect, long angle) {
+        float cos = FastTrig.cosDegrees(angle);
+        float sin = FastTrig.sinDegrees(angle);
+        float inner = MARKER_INNER_RADIUS * mRadioKnob;
+        float outer = MARKER_OUTER_RADIUS * mRadioKnob;
+        float margin = MARKER_HALF_HEIGHT * mRadioKnob + DIRTY_MARGIN;
+
+        float x1 = centerX + inner * cos;
+        float y1 = centerY + inner * sin;
+        float x2 = centerX + outer * cos;
+        float y2 = centerY + outer * sin;
+        rect.union((int) Math.floor(Math.min(x1, x2) - margin),
+                (int) Math.floor(Math.min(y1, y2) - margin),
+                (int) Math.ceil(Math.max(x1, x2) + margin),
+                (int) Math.ceil(Math.max(y1, y2) + margin));
+    }
+
+    /**
+     * @return returns the angle the knob is drawn at: the current angle or, while dragging with the
+     * prediction enabled, where the finger is expected to be by the time the frame is on screen.
+     * Package private for the tests
+     */
+    float getKnobRenderAngle() {
+        if (!mPredictionEnabled || !mDragging) return mCurrentAngle;
+
+        // The velocity is that of the last samples, once they stop coming the finger stopped too
+        long idle = Math.max(0, SystemClock.uptimeMillis() - mLastSampleTime);
+        if (idle > PREDICTION_IDLE_MILLIS) return mCurrentAngle;
+
+        long horizon = Math.min(idle + mPredictionLookaheadMillis, MAX_PREDICTION_MILLIS);
+        float angle = mCurrentAngle + getAngularVelocity() * horizon / 1000f;
+        return Math.max(MIN_ANGLE_REQUIRED, Math.min(angle, MAX_ANGLE_REQUIRED));
     }
 
     protected long normalizeCurrentAngle() {
-        return (mCurrentAngle / MINUTE_VALUE_TO_DEGREES_STEP_SIZE) *
-                MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
+        return normalizeAngle(mCurrentAngle);
+    }
+
+    private static long normalizeAngle(long angle) {
+        return (angle / MINUTE_VALUE_TO_DEGREES_STEP_SIZE) * MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
     }
 
     // Measure the custom view to the specified size
@@ -207,6 +648,15 @@ public class DialView extends View {
         // If there is no change, skip the calculation
         if (!changed) return;
 
+        Trace.beginSection(TRACE_LAYOUT);
+        try {
+            layoutDial();
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void layoutDial() {
         // Make all the calculations
         int paddingLeft = getPaddingLeft();
         int paddingTop = getPaddingTop();
@@ -219,36 +669,17 @@ public class DialView extends View {
         mBaseSize = Math.min(contentWidth, contentHeight);
 
         // Calculate the base top, left, button, right
-        float mLeft;
-        float mTop;
-        float mRight;
-        float mBottom;
         float padding = BASE_STROKE_WIDTH_PERCENTAGE * mBaseSize;
-
-        if (contentHeight > contentWidth) {
-            mLeft = padding / 2f;
-            mTop = (contentHeight - contentWidth + padding) / 2f;
-            mRight = contentWidth - padding / 2f;
-            mBottom = contentHeight - mTop;
-        } else if (contentWidth > contentHeight) {
-            mLeft = (contentWidth - contentHeight + padding) / 2f;
-            mTop = padding / 2f;
-            mRight = (contentWidth + contentHeight - padding) / 2f;
-            mBottom = contentHeight - padding / 2f;
-        } else {
-            mLeft = padding / 2f;
-            mTop = padding / 2f;
-            mRight = contentWidth - padding / 2f;
-            mBottom = contentHeight - padding / 2f;
-        }
+        final float[] bounds = mLayoutBounds;
+        ChartLayout.squareBounds(contentWidth, contentHeight, padding, bounds);
 
         // Measure & Position Minutes Text Area
         RectF rect = new RectF();
         RectF rectMinutes = new RectF();
-        rectMinutes.left = mLeft + paddingLeft;
-        rectMinutes.top = mTop + paddingTop;
-        rectMinutes.right = mRight + paddingRight;
-        rectMinutes.bottom = mBottom + paddingBottom;
+        rectMinutes.left = bounds[0] + paddingLeft;
+        rectMinutes.top = bounds[1] + paddingTop;
+        rectMinutes.right = bounds[2] + paddingRight;
+        rectMinutes.bottom = bounds[3] + paddingBottom;
 
         mMinutesRadio = Math.min(rectMinutes.width() / 2f, rectMinutes.height() / 2f);
 
@@ -258,9 +689,7 @@ public class DialView extends View {
         rectMinutes.right -= mTextSize;
         rectMinutes.bottom -= mTextSize;
 
-        // Getting Lines Image
-        mLinesImage = getImageResized(R.drawable.lines, rectMinutes.width(), rectMinutes.height());
-        mLinesImage.setBounds((int)rectMinutes.left, (int) rectMinutes.top,
+        mLinesBounds.set((int) rectMinutes.left, (int) rectMinutes.top,
                 (int) rectMinutes.right, (int) rectMinutes.bottom);
 
         // Measure & Position Oval Image
@@ -269,10 +698,7 @@ public class DialView extends View {
         rect.right = rectMinutes.right - 0f * padding;
         rect.bottom = rectMinutes.bottom - 0f * padding;
 
-        // Getting Oval Image
-        mOvalImage = getImageResized(R.drawable.oval, rect.width(), rect.height());
-        mOvalImage.setBounds((int) rect.left, (int) rect.top,
-                (int) rect.right, (int) rect.bottom);
+        mOvalBounds.set((int) rect.left, (int) rect.top, (int) rect.right, (int) rect.bottom);
 
         // Measure & Position Knob Image
         rect.left = rectMinutes.left + 5f * padding;
@@ -282,147 +708,505 @@ public class DialView extends View {
 
         mRadioKnob = Math.min(rect.width() / 2f, rect.height() / 2f);
 
-        // Getting Knob Image
-        mKnobImage = getImageResized(R.drawable.knob, rect.width(), rect.height());
-        mKnobImage.setBounds((int) rect.left, (int) rect.top,
-                (int) rect.right, (int) rect.bottom);
+        mKnobBounds.set((int) rect.left, (int) rect.top, (int) rect.right, (int) rect.bottom);
+
+        // Getting the images, from the cache or decoded in the background
+        releaseImages();
+        loadMissingImages();
 
         // Calculate the center of the view
         centerX = getWidth() / 2f;
         centerY = getHeight() / 2f;
 
+        layoutLabels();
+
+        if (mRenderMode == RENDER_MODE_VECTOR) {
+            layoutVectorDial();
+        }
+        mStaticLayerDirty = true;
+
         setTouchInSide();
     }
 
     /**
-     * simply re-sizes a given drawable resource to the given width and height */
-    private Drawable getImageResized(int resId, float newWidth, float newHeight) {
+     * Calculates the position of the quadrant labels (every 15 minutes)
+     */
+    private void layoutLabels() {
+        int index = 0;
+        for (int i = 1; i <= MINUTES_PER_HOUR; i++) {
+            if (i % 15 == 0) {
+                // Get coordinates for the quadrants (every 15 minutes)
+                Point point = buildCoordinateXY(mMinutesRadio, centerX, centerY,
+                        MINUTE_VALUE_TO_DEGREES_STEP_SIZE * i);
+                mLabelX[index] = point.x;
+                mLabelY[index] = point.y + mTextSize / 3;
+                index++;
+            }
+        }
+    }
 
-        // Load the original Bitmap
-        Bitmap BitmapOrg = BitmapFactory.decodeResource(getResources(), resId);
+    /**
+     * Calculates the geometry of the vector dial, laid out over the bounds of the images
+     */
+    private void layoutVectorDial() {
+        float padding = BASE_STROKE_WIDTH_PERCENTAGE * mBaseSize;
+        if (padding <= 0) return;
+
+        // Ticks, every 5 minutes a longer one
+        float linesRadius = Math.min(mLinesBounds.width(), mLinesBounds.height()) / 2f;
+        final float[] points = mTickPoints;
+        for (int i = 0; i < MINUTES_PER_HOUR; i++) {
+            float cos = FastTrig.cosDegrees(i * MINUTE_VALUE_TO_DEGREES_STEP_SIZE);
+            float sin = FastTrig.sinDegrees(i * MINUTE_VALUE_TO_DEGREES_STEP_SIZE);
+            float inner = linesRadius * (i % 5 == 0 ? MAJOR_TICK_INNER_RADIUS
+                    : MINOR_TICK_INNER_RADIUS);
+            points[i * 4] = centerX + inner * cos;
+            points[i * 4 + 1] = centerY + inner * sin;
+            points[i * 4 + 2] = centerX + linesRadius * cos;
+            points[i * 4 + 3] = centerY + linesRadius * sin;
+        }
+        mTickPaint.setStrokeWidth(TICK_STROKE_WIDTH * padding);
+
+        // Oval, lit from the top left & casting a soft shadow to the bottom right
+        mOvalRadius = mRadioKnob;
+        mShadowOffset = padding;
+        mShadowRadius = mOvalRadius + 2f * padding;
+        mOvalPaint.setShader(new LinearGradient(centerX - mOvalRadius, centerY - mOvalRadius,
+                centerX + mOvalRadius, centerY + mOvalRadius, OVAL_LIGHT_COLOR, OVAL_DARK_COLOR,
+                Shader.TileMode.CLAMP));
+        mShadowPaint.setShader(new RadialGradient(centerX + mShadowOffset,
+                centerY + mShadowOffset, mShadowRadius,
+                new int[]{SHADOW_COLOR, SHADOW_COLOR, Color.TRANSPARENT},
+                new float[]{0f, mOvalRadius / mShadowRadius, 1f}, Shader.TileMode.CLAMP));
+
+        // Knob, its marker points to 0 degrees & is rotated with the current angle
+        mKnobRingPaint.setStrokeWidth(padding / 2f);
+        mKnobRingRadius = mRadioKnob - padding / 4f;
+        mMarkerRect.set(centerX + MARKER_INNER_RADIUS * mRadioKnob,
+                centerY - MARKER_HALF_HEIGHT * mRadioKnob,
+                centerX + MARKER_OUTER_RADIUS * mRadioKnob,
+                centerY + MARKER_HALF_HEIGHT * mRadioKnob);
+        mMarkerPath.rewind();
+        mMarkerPath.addRoundRect(mMarkerRect, padding / 4f, padding / 4f, Path.Direction.CW);
+    }
 
-        int width = BitmapOrg.getWidth();
-        int height = BitmapOrg.getHeight();
+    /**
+     * @param renderMode RENDER_MODE_BITMAP to draw the dial with its images or RENDER_MODE_VECTOR
+     *                   to draw it with paths, without any bitmap
+     */
+    public void setRenderMode(int renderMode) {
+        if (renderMode != RENDER_MODE_BITMAP && renderMode != RENDER_MODE_VECTOR) {
+            throw new IllegalArgumentException("Invalid render mode :: " + renderMode);
+        }
+        if (mRenderMode == renderMode) return;
+        mRenderMode = renderMode;
+        if (renderMode == RENDER_MODE_VECTOR) {
+            releaseImages();
+            releaseStaticLayer();
+            layoutVectorDial();
+        } else {
+            loadMissingImages();
+        }
+        invalidateStaticLayer();
+    }
 
-        // calculate the scale
-        float scaleWidth = newWidth / width;
-        float scaleHeight = newHeight / height;
+    public int getRenderMode() {
+        return mRenderMode;
+    }
 
-        // create a matrix for the manipulation
-        Matrix matrix = new Matrix();
+    /**
+     * Takes from the cache the images that are still missing, the ones not cached yet are decoded
+     * in the background & picked up when mOnBitmapLoadedListener is called
+     *
+     * @return returns true if any image was set
+     */
+    private boolean loadMissingImages() {
+        // Images are only held while attached, they are given back to the cache on detach
+        if (!isAttachedToWindow() || mRenderMode == RENDER_MODE_VECTOR) return false;
+
+        boolean loaded = false;
+        if (mLinesImage == null) {
+            mLinesImage = getImageResized(R.drawable.lines, mLinesBounds);
+            loaded = mLinesImage != null;
+        }
+        if (mOvalImage == null) {
+            mOvalImage = getImageResized(R.drawable.oval, mOvalBounds);
+            loaded |= mOvalImage != null;
+        }
+        if (mKnobImage == null) {
+            mKnobImage = getImageResized(R.drawable.knob, mKnobBounds);
+            loaded |= mKnobImage != null;
+        }
+        if (loaded) {
+            updateBitmapBytes();
+        }
+        return loaded;
+    }
 
-        // resize the Bitmap
-        matrix.postScale(scaleWidth, scaleHeight);
+    /**
+     * Gives the images back to the cache, so that their bitmaps can be reused once evicted
+     */
+    private void releaseImages() {
+        BitmapCache cache = BitmapCache.getInstance();
+        if (mLinesImage != null) cache.release(mLinesImage.getBitmap());
+        if (mOvalImage != null) cache.release(mOvalImage.getBitmap());
+        if (mKnobImage != null) cache.release(mKnobImage.getBitmap());
+        mLinesImage = null;
+        mOvalImage = null;
+        mKnobImage = null;
+        updateBitmapBytes();
+    }
 
-        // if you want to rotate the Bitmap
-        // matrix.postRotate(45);
+    /**
+     * @return returns the given drawable resource resized to the given bounds, or null if it isn't
+     * in the cache yet
+     */
+    private BitmapDrawable getImageResized(int resId, Rect bounds) {
+        if (bounds.width() <= 0 || bounds.height() <= 0) return null;
 
-        // recreate the new Bitmap
-        Bitmap resizedBitmap = Bitmap.createBitmap(BitmapOrg, 0, 0, width, height, matrix, true);
+        Bitmap bitmap = BitmapCache.getInstance().load(getResources(), resId, bounds.width(),
+                bounds.height(), mImageConfig, mOnBitmapLoadedListener);
+        if (bitmap == null) return null;
 
         // make a Drawable from Bitmap to allow to set the Bitmap
         // to the ImageView, ImageButton or what ever
-        return new BitmapDrawable(resizedBitmap);
+        BitmapDrawable drawable = new BitmapDrawable(getResources(), bitmap);
+        // Sized to the bitmap, a pixel off the bounds at most, centered on them so it's drawn
+        // without scaling
+        int left = bounds.centerX() - bitmap.getWidth() / 2;
+        int top = bounds.centerY() - bitmap.getHeight() / 2;
+        drawable.setBounds(left, top, left + bitmap.getWidth(), top + bitmap.getHeight());
+        return drawable;
+    }
 
+    /**
+     * @param imageConfig config asked to the decoder for the images. It is only a preference: the
+     *                    decoder honours RGB_565 for opaque images only, and the images of the
+     *                    dial (knob, lines & oval) have alpha, so they are ARGB_8888 anyway
+     */
+    public void setImageConfig(Bitmap.Config imageConfig) {
+        if (imageConfig == mImageConfig) return;
+        mImageConfig = imageConfig;
+        releaseImages();
+        loadMissingImages();
+        invalidateStaticLayer();
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        Trace.beginSection(TRACE_TOUCH);
+        try {
+            if (mMetrics != null) {
+                mMetrics.recordTouchEvent(event.getHistorySize() + 1);
+            }
+            return handleTouchEvent(event);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private boolean handleTouchEvent(MotionEvent event) {
         getParent().requestDisallowInterceptTouchEvent(true);
 
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
             {
-                mAngle = updateOnTouch(event);
+                // Catching the knob stops it
+                stopFling();
+                mAngle = updateOnTouch(event.getX(), event.getY());
                 if (mAngle != INVALID_PROGRESS_VALUE) {
                     mAngle1 = mAngle;
                 }
                 mVibrator1 = mVibrator2 = 0;
+                mTrackedAngle = 0;
+                mVelocitySampleCount = 0;
+                mDragging = true;
+                mLastSampleTime = event.getEventTime();
+                mKnobLagDegrees = 0;
+                addVelocitySample(event.getEventTime(), mTrackedAngle);
             }
             break;
 
             case MotionEvent.ACTION_MOVE: {
-                mAngle = updateOnTouch(event);
-                boolean changed = false;
-                if (mAngle != INVALID_PROGRESS_VALUE) {
-                    mAngle2 = mAngle;
-
-                    if (isIn1stQuadrant(mAngle1) && isIn4thQuadrant(mAngle2)) {
-                        mDiff = -(mAngle1 + (360 - mAngle2));
-                    } else if (isIn1stQuadrant(mAngle2) && isIn4thQuadrant(mAngle1)) {
-                        mDiff = mAngle2 + (360 - mAngle1);
-                    } else {
-                        mDiff = mAngle2 - mAngle1;
-                    }
-                    mAngle1 = mAngle2;
-
-                    // Calculate Total Angle
-                    mCurrentAngle += mDiff;
-                    if (mCurrentAngle < MIN_ANGLE_REQUIRED) {
-                        mCurrentAngle = MIN_ANGLE_REQUIRED;
-                    } else if(mCurrentAngle > MAX_ANGLE_REQUIRED) {
-                        mCurrentAngle = MAX_ANGLE_REQUIRED;
-                    }
-
-                    mVibrator2 = mCurrentAngle / MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
-                    if (mVibrator1 != mVibrator2) {
-                        // The angle changed
-                        changed = true;
-
-                        // Play the device vibrator
-                        if (mVibrator != null && mVibrator.hasVibrator()) {
-                            mVibrator.vibrate(50);
-                        }
-
-                        // Store last state
-                        mVibrator1 = mVibrator2;
-                    }
-
-                    // Calculate current time in seconds
-                    mCurrentTime = calculateCurrentTime();
-
-                    // Update UI
-                    invalidate();
-
-                    // Update time to the client
-                    // Note: This call MUST be fast to avoid affecting the performance of the
-                    // entire component
-                    if (mOnDialViewChangeListener != null) {
-                        mOnDialViewChangeListener.onProgressChanged(this, mCurrentTime, changed);
-                    }
+                // Every sample batched into the event, oldest first, then the current one. At high
+                // touch sampling rates a single event carries several samples, skipping them would
+                // skip steps & lose the direction of fast spins
+                boolean moved = false;
+                final int historySize = event.getHistorySize();
+                for (int i = 0; i < historySize; i++) {
+                    moved |= processTouchSample(event.getHistoricalX(i), event.getHistoricalY(i),
+                            event.getHistoricalEventTime(i));
+                }
+                moved |= processTouchSample(event.getX(), event.getY(), event.getEventTime());
+
+                if (moved) {
+                    onCurrentAngleChanged();
+                }
+                if (mPredictionEnabled) {
+                    // Redraws the knob without prediction if this is the last sample for a while
+                    removeCallbacks(mSettleKnobRunnable);
+                    postDelayed(mSettleKnobRunnable, PREDICTION_IDLE_MILLIS + 1);
                 }
             }
             break;
 
             case MotionEvent.ACTION_UP:
+            {
+                if (processTouchSample(event.getX(), event.getY(), event.getEventTime())) {
+                    onCurrentAngleChanged();
+                }
+                if (mFlingEnabled) {
+                    startFling(getAngularVelocity());
+                }
+            }
+            // fall through
             case MotionEvent.ACTION_CANCEL:
             {
+                // Back to the true angle, without prediction
+                mDragging = false;
+                removeCallbacks(mSettleKnobRunnable);
+                invalidateKnob();
                 setPressed(false);
                 getParent().requestDisallowInterceptTouchEvent(false);
                 // Turn off vibrator
-                if (mVibrator != null && mVibrator.hasVibrator()) {
-                    mVibrator.cancel();
-                }
+                stopVibrator();
             }
             break;
         }
         return true;
     }
 
-    private int updateOnTouch(MotionEvent event) {
-        boolean ignoreTouch = ignoreTouch(event.getX(), event.getY());
-        if (ignoreTouch) return INVALID_PROGRESS_VALUE;
-        setPressed(true);
-        mTouchAngle = getTouchDegrees(event.getX(), event.getY());
-        return getProgressForAngle(mTouchAngle);
+    /**
+     * Adds the movement of a single touch sample to the current angle
+     *
+     * @return returns true if the sample moved the knob
+     */
+    private boolean processTouchSample(float x, float y, long eventTime) {
+        mAngle = updateOnTouch(x, y);
+        if (mAngle == INVALID_PROGRESS_VALUE) return false;
+        mAngle2 = mAngle;
+
+        // Samples are close to each other, so the shortest way between them is the one the finger
+        // took, even when it crosses 0 degrees
+        mDiff = ChartLayout.shortestDelta(mAngle1, mAngle2);
+        mAngle1 = mAngle2;
+
+        // The velocity follows the finger, even past the limits of the dial
+        mTrackedAngle += mDiff;
+        addVelocitySample(eventTime, mTrackedAngle);
+        mLastSampleTime = eventTime;
+
+        // Calculate Total Angle
+        mCurrentAngle = clampAngle(mCurrentAngle + mDiff);
+
+        // How far the knob on screen, as last drawn, is from the finger
+        float lag = Math.abs(mCurrentAngle - mRenderedAngle);
+        mKnobLagDegrees += (lag - mKnobLagDegrees) * LAG_SMOOTHING;
+        return mDiff != 0;
+    }
+
+    /**
+     * Vibrates on every new minute, updates the UI and notifies the client once the current angle
+     * changed, by a drag or a fling
+     */
+    private void onCurrentAngleChanged() {
+        boolean changed = false;
+        mVibrator2 = mCurrentAngle / MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
+        if (mVibrator1 != mVibrator2) {
+            // The angle changed
+            changed = true;
+
+            // Play the device vibrator, merged with the other steps of a fast spin
+            mHapticScheduler.onStep();
+
+            // Store last state
+            mVibrator1 = mVibrator2;
+        }
+
+        // Calculate current time in seconds
+        mCurrentTime = calculateCurrentTime();
+
+        // Update UI, only if the knob moved to another minute
+        invalidateKnob();
+
+        // Update time to the client
+        // Note: In DISPATCH_MODE_IMMEDIATE without an executor the listener is called right here,
+        // so it MUST be fast to avoid affecting the performance of the entire component
+        mProgressDispatcher.dispatch(mCurrentTime, changed);
+    }
+
+    private long clampAngle(long angle) {
+        if (angle < MIN_ANGLE_REQUIRED) return MIN_ANGLE_REQUIRED;
+        if (angle > MAX_ANGLE_REQUIRED) return MAX_ANGLE_REQUIRED;
+        return angle;
     }
 
-    private boolean isIn1stQuadrant(double angle) {
-        return angle >= 0 && angle <= 90;
+    private void addVelocitySample(long eventTime, float angle) {
+        mVelocitySampleTimes[mVelocitySampleIndex] = eventTime;
+        mVelocitySampleAngles[mVelocitySampleIndex] = angle;
+        mVelocitySampleIndex = (mVelocitySampleIndex + 1) % VELOCITY_SAMPLES;
+        if (mVelocitySampleCount < VELOCITY_SAMPLES) {
+            mVelocitySampleCount++;
+        }
     }
 
-    private boolean isIn4thQuadrant(double angle) {
-        return angle >= 270 && angle <= 360;
+    /**
+     * @return returns the angular velocity of the current or last drag, in degrees per second
+     * (positive clockwise), measured over its last VELOCITY_WINDOW_MILLIS
+     */
+    public float getAngularVelocity() {
+        if (mVelocitySampleCount < 2) return 0;
+
+        int newest = (mVelocitySampleIndex - 1 + VELOCITY_SAMPLES) % VELOCITY_SAMPLES;
+        long newestTime = mVelocitySampleTimes[newest];
+        int oldest = newest;
+        for (int i = 1; i < mVelocitySampleCount; i++) {
+            int index = (newest - i + VELOCITY_SAMPLES) % VELOCITY_SAMPLES;
+            if (newestTime - mVelocitySampleTimes[index] > VELOCITY_WINDOW_MILLIS) break;
+            oldest = index;
+        }
+
+        long elapsed = newestTime - mVelocitySampleTimes[oldest];
+        if (elapsed <= 0) return 0;
+        return (mVelocitySampleAngles[newest] - mVelocitySampleAngles[oldest]) * 1000f / elapsed;
+    }
+
+    /**
+     * @param flingEnabled true to keep the knob turning after a fast drag, slowing down until it
+     *                     stops or reaches the limits of the dial. Disabled by default
+     */
+    public void setFlingEnabled(boolean flingEnabled) {
+        mFlingEnabled = flingEnabled;
+        if (!flingEnabled) {
+            stopFling();
+        }
+    }
+
+    public boolean isFlingEnabled() {
+        return mFlingEnabled;
+    }
+
+    /**
+     * @param predictionEnabled true to draw the knob where the finger is expected to be when the
+     *                          frame reaches the screen, extrapolated from the angular velocity.
+     *                          The time reported to the listener is always the true one
+     */
+    public void setPredictionEnabled(boolean predictionEnabled) {
+        mPredictionEnabled = predictionEnabled;
+        invalidateKnob();
+    }
+
+    public boolean isPredictionEnabled() {
+        return mPredictionEnabled;
+    }
+
+    /**
+     * @param lookaheadMillis time from an input event to its frame on screen, the knob is
+     *                        extrapolated up to MAX_PREDICTION_MILLIS past the last touch sample
+     */
+    public void setPredictionLookahead(long lookaheadMillis) {
+        if (lookaheadMillis < 0) {
+            throw new IllegalArgumentException("Invalid lookahead :: " + lookaheadMillis);
+        }
+        mPredictionLookaheadMillis = lookaheadMillis;
+    }
+
+    /**
+     * @return returns how far the knob drawn on screen trailed the finger when each touch sample
+     * of the current or last drag arrived, in degrees (moving average)
+     */
+    public float getKnobLagDegrees() {
+        return mKnobLagDegrees;
+    }
+
+    /**
+     * @return returns getKnobLagDegrees() as the time the finger takes to cover it at the current
+     * angular velocity, in milliseconds, or 0 when the finger is not moving
+     */
+    public float getKnobLagMillis() {
+        float velocity = Math.abs(getAngularVelocity());
+        if (velocity < 1f) return 0;
+        return mKnobLagDegrees * 1000f / velocity;
+    }
+
+    private void startFling(float velocity) {
+        if (Math.abs(velocity) < MIN_FLING_VELOCITY) return;
+        mFlinging = true;
+        mFlingAngle = mCurrentAngle;
+        mFlingVelocity = velocity;
+        // Frame times of the FrameClock are on the System.nanoTime() base
+        mFlingFrameNanos = System.nanoTime();
+        FrameClock.getInstance().postFrameCallback(mFlingCallback);
+    }
+
+    private void stopFling() {
+        mFlinging = false;
+        FrameClock.getInstance().removeFrameCallback(mFlingCallback);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (loadMissingImages()) {
+            invalidateStaticLayer();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // A drag can't continue once the dial is gone, stop any ongoing vibration or fling
+        stopVibrator();
+        stopFling();
+        removeCallbacks(mSettleKnobRunnable);
+        mProgressDispatcher.flush();
+        releaseImages();
+        releaseStaticLayer();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility != VISIBLE) {
+            // Nothing is drawn while hidden, a fling would only move the time in the background
+            stopVibrator();
+            stopFling();
+        }
+    }
+
+    private void stopVibrator() {
+        mHapticScheduler.cancel();
+    }
+
+    /**
+     * @param enabled true to play the ticks with View.performHapticFeedback() when the Vibrator is
+     *                not available, either not present or without the VIBRATE permission
+     */
+    public void setHapticFallbackEnabled(boolean enabled) {
+        mHapticScheduler.setFallbackEnabled(enabled);
+    }
+
+    /**
+     * @param maxTicksPerSecond max number of haptic ticks played per second, steps crossed faster
+     *                          than that are merged
+     */
+    public void setMaxHapticTicksPerSecond(int maxTicksPerSecond) {
+        mHapticScheduler.setMaxTicksPerSecond(maxTicksPerSecond);
+    }
+
+    /**
+     * @return returns the number of calls to the vibrator service made in the last second
+     */
+    public int getHapticBinderCallsPerSecond() {
+        return mHapticScheduler.getBinderCallsPerSecond();
+    }
+
+    private int updateOnTouch(float x, float y) {
+        boolean ignoreTouch = ignoreTouch(x, y);
+        if (ignoreTouch) return INVALID_PROGRESS_VALUE;
+        setPressed(true);
+        mTouchAngle = getTouchDegrees(x, y);
+        return getProgressForAngle(mTouchAngle);
     }
 
     private int getProgressForAngle(double angle) {
@@ -437,15 +1221,7 @@ public class DialView extends View {
     }
 
     private boolean ignoreTouch(float xPos, float yPos) {
-        boolean ignore = false;
-        float x = xPos - centerX;
-        float y = yPos - centerY;
-
-        float touchRadius = (float) Math.sqrt(((x * x) + (y * y)));
-        if (touchRadius < mTouchIgnoreRadius) {
-            ignore = true;
-        }
-        return ignore;
+        return Distances.isInsideCircle(xPos, yPos, centerX, centerY, mTouchIgnoreRadius);
     }
 
     public void setTouchInSide() {
@@ -455,7 +1231,7 @@ public class DialView extends View {
     private double getTouchDegrees(float xPos, float yPos) {
         float x = xPos - centerX;
         float y = yPos - centerY;
-        double angle = Math.toDegrees(Math.atan2(y, x) + (Math.PI / 2));
+        double angle = FastTrig.atan2Degrees(y, x) + 90;
 
         if (angle < 0) {
             angle = 360 + angle;
@@ -478,9 +1254,10 @@ public class DialView extends View {
     }
 
     public void setCurrentTime(long currentTime) {
+        stopFling();
         mCurrentTime = currentTime;
         mCurrentAngle = normalizeCurrentAngle(currentTime);
-        invalidate();
+        invalidateKnob();
     }
 
     private long calculateCurrentTime() {
@@ -494,12 +1271,95 @@ public class DialView extends View {
     private Point buildCoordinateXY(float radio, float centerX, float centerY, float
             angleInDegrees) {
         Point point = new Point();
-        point.x = centerX + (float)(radio * Math.cos(Math.toRadians(angleInDegrees)));
-        point.y = centerY + (float)(radio * Math.sin(Math.toRadians(angleInDegrees)));
+        point.x = centerX + radio * FastTrig.cosDegrees(angleInDegrees);
+        point.y = centerY + radio * FastTrig.sinDegrees(angleInDegrees);
         return point;
     }
 
     public void setOnDialViewChangeListener(OnDialViewChangeListener dialViewChangeListener) {
-        mOnDialViewChangeListener = dialViewChangeListener;
+        mProgressDispatcher.setListener(dialViewChangeListener);
+    }
+
+    /**
+     * @param dispatchMode DISPATCH_MODE_IMMEDIATE to notify the listener on every touch event, or
+     *                     DISPATCH_MODE_COALESCED to notify it at most once per frame (or per
+     *                     dispatch interval), only when the time changed since the last call
+     */
+    public void setDispatchMode(int dispatchMode) {
+        if (dispatchMode != DISPATCH_MODE_IMMEDIATE && dispatchMode != DISPATCH_MODE_COALESCED) {
+            throw new IllegalArgumentException("Invalid dispatch mode :: " + dispatchMode);
+        }
+        mProgressDispatcher.setMode(dispatchMode);
+    }
+
+    public int getDispatchMode() {
+        return mProgressDispatcher.getMode();
+    }
+
+    /**
+     * @param intervalMillis min time between two calls to the listener in DISPATCH_MODE_COALESCED,
+     *                       0 (the default) for once per frame
+     */
+    public void setDispatchInterval(long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("Invalid dispatch interval :: " + intervalMillis);
+        }
+        mProgressDispatcher.setInterval(intervalMillis);
+    }
+
+    public long getDispatchInterval() {
+        return mProgressDispatcher.getInterval();
+    }
+
+    /**
+     * @param executor executor the listener is called on, or null to call it on the UI thread. A
+     *                 slow listener only gets the latest time once it is done with the previous one
+     */
+    public void setDispatchExecutor(Executor executor) {
+        mProgressDispatcher.setExecutor(executor);
+    }
+
+    /**
+     * @param metrics metrics the dial records its frames into, null to stop recording
+     */
+    public void setMetrics(ViewMetrics metrics) {
+        if (mMetrics == metrics) return;
+        // The bitmaps held are moved to the new metrics
+        if (mMetrics != null) {
+            mMetrics.addBitmapBytes(-mBitmapBytes);
+        }
+        mMetrics = metrics;
+        if (metrics != null) {
+            metrics.addBitmapBytes(mBitmapBytes);
+        }
+        mProgressDispatcher.setMetrics(metrics);
+    }
+
+    public ViewMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    @Override
+    public void invalidate() {
+        if (mMetrics != null) mMetrics.recordInvalidation();
+        super.invalidate();
+    }
+
+    @Override
+    public void invalidate(int l, int t, int r, int b) {
+        if (mMetrics != null) mMetrics.recordInvalidation();
+        super.invalidate(l, t, r, b);
+    }
+
+    @Override
+    public void invalidate(Rect dirty) {
+        if (mMetrics != null) mMetrics.recordInvalidation();
+        super.invalidate(dirty);
+    }
+
+    @Override
+    public void postInvalidateOnAnimation() {
+        if (mMetrics != null) mMetrics.recordInvalidation();
+        super.postInvalidateOnAnimation();
     }
 }
@@ -0,0 +1,149 @@
+package com.mobile.piechart.views;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Vibrator;
+import android.view.HapticFeedbackConstants;
+import android.view.View;
+
+/**
+ * @author David Castillo Fuentes
+ * Plays the haptic ticks of a DialView. Every call to the Vibrator is a binder call to the system
+ * service, so the scheduler keeps them to a minimum:
+ *
+ * - hasVibrator() is asked once, when the scheduler is created
+ * - Steps are merged into at most maxTicksPerSecond ticks. A step that comes too soon after the
+ *   previous tick is played when the interval elapses, together with any other step in between
+ * - cancel() only reaches the Vibrator while a vibration may still be playing
+ *
+ * Without a Vibrator (no device vibrator or no VIBRATE permission) the ticks can fall back to
+ * View.performHapticFeedback(), which follows the haptic settings of the user.
+ *
+ * Every binder call made is recorded, getBinderCallsPerSecond() reports how many were made in the
+ * last second. This class must be used from the UI thread.
+ */
+final class HapticScheduler {
+
+    static final int DEFAULT_MAX_TICKS_PER_SECOND = 20;
+    private static final long TICK_DURATION_MILLIS = 50;
+    private static final long RATE_WINDOW_MILLIS = 1000;
+    // Binder calls remembered to measure the rate, more than this per second are not reported
+    private static final int MAX_RECORDED_CALLS = 64;
+
+    private final View mView;
+    // Null when the device can't vibrate or the app can't use it
+    private final Vibrator mVibrator;
+    private boolean mFallbackEnabled;
+    private long mMinIntervalMillis;
+
+    private long mLastTickMillis = Long.MIN_VALUE / 2;
+    private long mVibrationEndMillis;
+    private boolean mTickPending;
+    private final Runnable mTickRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mTickPending = false;
+            tick(SystemClock.uptimeMillis());
+        }
+    };
+
+    private final long[] mCallTimes = new long[MAX_RECORDED_CALLS];
+    private int mCallIndex;
+    private long mCallCount;
+
+    HapticScheduler(View view, Vibrator vibrator) {
+        mView = view;
+        boolean hasVibrator = false;
+        if (vibrator != null) {
+            hasVibrator = vibrator.hasVibrator();
+            recordBinderCall(SystemClock.uptimeMillis());
+        }
+        mVibrator = hasVibrator ? vibrator : null;
+        setMaxTicksPerSecond(DEFAULT_MAX_TICKS_PER_SECOND);
+    }
+
+    void setMaxTicksPerSecond(int maxTicksPerSecond) {
+        if (maxTicksPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid tick rate :: " + maxTicksPerSecond);
+        }
+        mMinIntervalMillis = RATE_WINDOW_MILLIS / maxTicksPerSecond;
+    }
+
+    void setFallbackEnabled(boolean fallbackEnabled) {
+        mFallbackEnabled = fallbackEnabled;
+    }
+
+    /**
+     * Called every time the dial reaches another step
+     */
+    void onStep() {
+        if (mVibrator == null && !mFallbackEnabled) return;
+        // Already merged into the next tick
+        if (mTickPending) return;
+
+        long now = SystemClock.uptimeMillis();
+        long wait = mLastTickMillis + mMinIntervalMillis - now;
+        if (wait <= 0) {
+            tick(now);
+        } else {
+            mTickPending = true;
+            mView.postDelayed(mTickRunnable, wait);
+        }
+    }
+
+    /**
+     * Drops the pending tick and stops the vibration being played, if any
+     */
+    void cancel() {
+        if (mTickPending) {
+            mTickPending = false;
+            mView.removeCallbacks(mTickRunnable);
+        }
+        long now = SystemClock.uptimeMillis();
+        if (mVibrator != null && now < mVibrationEndMillis) {
+            mVibrator.cancel();
+            recordBinderCall(now);
+            mVibrationEndMillis = 0;
+        }
+    }
+
+    /**
+     * @return returns the number of binder calls made in the last second
+     */
+    int getBinderCallsPerSecond() {
+        long now = SystemClock.uptimeMillis();
+        int recorded = (int) Math.min(mCallCount, MAX_RECORDED_CALLS);
+        int count = 0;
+        for (int i = 0; i < recorded; i++) {
+            if (now - mCallTimes[i] < RATE_WINDOW_MILLIS) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return returns the number of binder calls made since the scheduler was created
+     */
+    long getBinderCallCount() {
+        return mCallCount;
+    }
+
+    private void tick(long now) {
+        mLastTickMillis = now;
+        if (mVibrator != null) {
+            mVibrator.vibrate(TICK_DURATION_MILLIS);
+            mVibrationEndMillis = now + TICK_DURATION_MILLIS;
+        } else {
+            mView.performHapticFeedback(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                    ? HapticFeedbackConstants.CLOCK_TICK : HapticFeedbackConstants.VIRTUAL_KEY);
+        }
+        recordBinderCall(now);
+    }
+
+    private void recordBinderCall(long now) {
+        mCallTimes[mCallIndex] = now;
+        mCallIndex = (mCallIndex + 1) % MAX_RECORDED_CALLS;
+        mCallCount++;
+    }
+}
@@ -2,59 +2,196 @@ package com.mobile.piechart.views;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.MotionEvent;
 import android.view.View;
-import android.view.animation.Animation;
-import android.view.animation.AnimationSet;
-import android.view.animation.Transformation;
 
 import com.mobile.piechart.R;
+import com.mobile.piechart.animation.RingAnimator;
+import com.mobile.piechart.animation.TransitionEngine;
+import com.mobile.piechart.data.AggregateSnapshot;
+import com.mobile.piechart.data.CategoryAggregator;
+import com.mobile.piechart.data.LiveFeed;
+import com.mobile.piechart.data.SliceModel;
+import com.mobile.piechart.geometry.ChartLayout;
+
+import java.util.concurrent.Executor;
 
 /**
  * @author David Castillo Fuentes
- * This is a very basic implementation of a PieGraph, it can draws 3 circles
- * calculated in the onLayout phase and drawed in the onDraw callback
+ * This is a very basic implementation of a PieGraph, it can draw any number of concentric rings
+ * calculated in the onLayout phase and drawed in the onDraw callback.
+ *
+ * The ring model lives in parallel primitive arrays (start angle, sweep, color & stroke width per
+ * ring), so drawing N rings is a single loop over those arrays with no allocations per frame.
+ * The circleN* XML attributes & the setCircle*N() accessors map to the first three rings.
+ *
+ * The intro animation is driven by a single RingAnimator, which moves every ring from 0 to its
+ * sweep in one pass per frame & invalidates the chart once per vsync.
+ *
+ * The static part of the chart (the background tracks) is recorded once into a cached bitmap
+ * layer, rebuilt only when the layout or the style changes, so every frame just blits the layer
+ * and draws the moving arcs on top of it. The layer survives detach & attach, it's only replaced
+ * when the size of the view changes and freed with the chart. The moving arcs are served by an
+ * ArcPathCache, so a frame where no quantized sweep changed doesn't rebuild any geometry.
+ * Ring updates only invalidate the band of the rings whose quantized angles changed, and nothing
+ * at all when none did.
+ *
+ * In MODE_SLICES the chart draws a donut made of the slices of a SliceModel instead of the rings.
+ * Slices smaller than one pixel of arc length are merged into runs, so the number of draw calls
+ * depends on the size of the view & not on the number of slices.
+ *
+ * Touches are resolved to a slice (binary search over the cumulative angles of the slice model)
+ * or to a ring (binary search over the radius bands calculated in onLayout) and reported to the
+ * OnSliceTouchListener, with no allocations per MotionEvent.
+ *
+ * The slices can be fed from a CategoryAggregator, which folds raw records on a worker pool and
+ * publishes its totals to the chart on the UI thread.
+ *
+ * For values that change many times per second, a LiveFeed can be attached: producers publish
+ * into it from any thread without locks & the chart picks the latest values at the beginning of
+ * each draw pass, invalidating itself at most once per frame.
+ *
+ * Data updates can be animated with transitionTo(): a TransitionEngine diffs the new values
+ * against the current ones and only animates the rings or slices that changed.
+ *
+ * Animations only run while the chart can be seen, they are paused when it is detached, hidden or
+ * its activity is stopped, and resumed (or finished, if their time is over) when it is back.
+ *
+ * To be used as a list item, the chart can be rebound with bind() to an immutable PieChartData &
+ * a shared PieChartStyle, which reuses the arrays, paint & animators it already has. Every chart
+ * is animated from the same FrameClock, a single frame callback per vsync for the whole list.
+ *
+ * Frame metrics (draw times, invalidations, touches, listener latency & bitmap bytes) can be
+ * recorded by giving the chart a ViewMetrics with setMetrics(). onLayout, onDraw & onTouchEvent
+ * are always wrapped in android.os.Trace sections.
  */
 public class PieChart extends View {
 
-    private enum CIRCLE {
-        CIRCLE1,
-        CIRCLE2,
-        CIRCLE3,
-    }
-
     public static final String LOG = PieChart.class.getName();
+    private static final String TRACE_LAYOUT = "PieChart#onLayout";
+    private static final String TRACE_DRAW = "PieChart#onDraw";
+    private static final String TRACE_TOUCH = "PieChart#onTouchEvent";
+    public static final int MODE_RINGS = 0;
+    public static final int MODE_SLICES = 1;
+    public static final int NO_HIT = -1;
     private static final float START_ANGLE_DEFAULT = 0;
     private static final float END_ANGLE_DEFAULT = 180;
     private static final int DEFAULT_COLOR = Color.BLACK;
-    private static final int DEFAULT_DURATION1 = 1500;
-    private static final int DEFAULT_DURATION2 = 2000;
-    private static final int DEFAULT_DURATION3 = 2500;
-    private static final int DEFAULT_ALPHA_VALUE = 50;
+    private static final int DEFAULT_RING_COUNT = 3;
+    // Slices smaller than this arc length (in pixels) are merged with their neighbours
+    private static final float MIN_RUN_LENGTH = 1f;
+    // Extra pixels invalidated around a ring, for the antialiasing of its edges
+    private static final float DIRTY_MARGIN = 1f;
+    private static final int NO_DIRTY_RING = Integer.MAX_VALUE;
+
+    private static final Executor MAIN_THREAD_EXECUTOR = new Executor() {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            mHandler.post(command);
+        }
+    };
 
-    private Paint mPaint;
-    private float mStrokeWidthPercentageBase = 0.07f;
+    // Shared style, the fields below start with its values & can be overridden per chart
+    private PieChartStyle mStyle = PieChartStyle.DEFAULT;
+    // Own paint of the chart, its color & stroke width change on every draw call
+    private final Paint mPaint = newPaint();
+    private int mTrackColor = mStyle.getTrackColor();
+    private float mStrokeWidthPercentageBase = mStyle.getStrokeWidthPercentage();
     private float mBaseSize;
 
-    private RectF mRectCircle1;
-    private int mCircleColor1 = DEFAULT_COLOR;
-    private float mCircleInitAngle1 = START_ANGLE_DEFAULT;
-    private float mCircleEndAngle1 = END_ANGLE_DEFAULT;
+    // Bounds of the outer ring, every other ring is inset from here
+    private RectF mRectBase;
+    // Scratch rect reused by onDraw
+    private RectF mRectRing;
+
+    // Ring model, the arrays are sized to the capacity & only the first mRingCount are used
+    private int mRingCount;
+    private float[] mRingStartAngles;
+    private float[] mRingSweepAngles;
+    private int[] mRingColors;
+    private float[] mRingStrokeWidthPercentages;
+
+    // Ring geometry, calculated in the onLayout phase
+    private final float[] mLayoutBounds = new float[4];
+    private float[] mRingInsets;
+    private float[] mRingStrokeWidths;
+    // Radius bands of the rings, decreasing with the ring index
+    private float[] mRingOuterRadii;
+    private float[] mRingInnerRadii;
+    private ArcPathCache mArcPathCache;
+    // Outermost ring changed since the last invalidation, NO_DIRTY_RING if none
+    private int mDirtyRing = NO_DIRTY_RING;
+
+    private int mMode = MODE_RINGS;
+
+    private CategoryAggregator mAggregator;
+    // Registered on the aggregator only while attached, so that it doesn't hold the view
+    private CategoryAggregator.OnSnapshotListener mSnapshotListener;
+    private LiveFeed mLiveFeed;
+    private OnSliceTouchListener mOnSliceTouchListener;
+
+    // Opt-in frame metrics, null when not recorded
+    private ViewMetrics mMetrics;
+    // Bytes of the bitmaps held by the chart, as last reported to the metrics
+    private long mBitmapBytes;
+    private int mLastTouchedIndex = NO_HIT;
 
-    private RectF mRectCircle2;
-    private int mCircleColor2 = DEFAULT_COLOR;
-    private float mCircleInitAngle2 = START_ANGLE_DEFAULT;
-    private float mCircleEndAngle2 = END_ANGLE_DEFAULT;
+    public interface OnSliceTouchListener {
 
-    private RectF mRectCircle3;
-    private int mCircleColor3 = DEFAULT_COLOR;
-    private float mCircleInitAngle3 = START_ANGLE_DEFAULT;
-    private float mCircleEndAngle3 = END_ANGLE_DEFAULT;
+        /**
+         * Client can be notified when a slice is touched, only in MODE_SLICES
+         *
+         * @param pieChart
+         *            The PieChart that was touched
+         * @param slice
+         *            The index of the touched slice in the slice model
+         */
+        void onSliceTouched(PieChart pieChart, int slice);
+
+        /**
+         * Client can be notified when a ring is touched, only in MODE_RINGS
+         *
+         * @param pieChart
+         *            The PieChart that was touched
+         * @param ring
+         *            The index of the touched ring
+         */
+        void onRingTouched(PieChart pieChart, int ring);
+
+    }
+
+    // Slice model & geometry, calculated in the onLayout phase
+    private SliceModel mSliceModel;
+    private RectF mRectSlices;
+    private float mSliceStrokeWidthPercentage = mStyle.getSliceStrokeWidthPercentage();
+    private float mSliceStrokeWidth;
+    private float mSlicesStartAngle = mStyle.getSlicesStartAngle();
+    private float mMinRunAngle;
+
+    // Cached layer with the static part of the chart
+    private Bitmap mStaticLayer;
+    private Canvas mStaticLayerCanvas;
+    private boolean mStaticLayerDirty = true;
+
+    private AnimationScheduler mAnimationScheduler;
+    private RingAnimator mRingAnimator;
+    private TransitionEngine mTransitionEngine;
+    // True when the model was changed without the transition engine knowing
+    private boolean mTransitionBaselineDirty = true;
+    private float[] mTransitionBaseline;
 
     public PieChart(Context context) {
         super(context);
@@ -73,22 +210,26 @@ public class PieChart extends View {
 
     private void init(AttributeSet attrs, int defStyle) {
 
+        setRingCount(DEFAULT_RING_COUNT);
+
         // Load attributes
         try {
 
             TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.PieChart, defStyle, 0);
 
-            mCircleColor1 = a.getColor(R.styleable.PieChart_circle1Color, DEFAULT_COLOR);
-            mCircleInitAngle1 = a.getFloat(R.styleable.PieChart_circle1InitialAngle, START_ANGLE_DEFAULT);
-            mCircleEndAngle1 = a.getFloat(R.styleable.PieChart_circle1EndAngle, END_ANGLE_DEFAULT);
+            setRingCount(a.getInt(R.styleable.PieChart_ringCount, DEFAULT_RING_COUNT));
+
+            mRingColors[0] = a.getColor(R.styleable.PieChart_circle1Color, DEFAULT_COLOR);
+            mRingStartAngles[0] = a.getFloat(R.styleable.PieChart_circle1InitialAngle, START_ANGLE_DEFAULT);
+            mRingSweepAngles[0] = a.getFloat(R.styleable.PieChart_circle1EndAngle, END_ANGLE_DEFAULT);
 
-            mCircleColor2 = a.getColor(R.styleable.PieChart_circle2Color, DEFAULT_COLOR);
-            mCircleInitAngle2 = a.getFloat(R.styleable.PieChart_circle2InitialAngle, START_ANGLE_DEFAULT);
-            mCircleEndAngle2 = a.getFloat(R.styleable.PieChart_circle2EndAngle, END_ANGLE_DEFAULT);
+            mRingColors[1] = a.getColor(R.styleable.PieChart_circle2Color, DEFAULT_COLOR);
+            mRingStartAngles[1] = a.getFloat(R.styleable.PieChart_circle2InitialAngle, START_ANGLE_DEFAULT);
+            mRingSweepAngles[1] = a.getFloat(R.styleable.PieChart_circle2EndAngle, END_ANGLE_DEFAULT);
 
-            mCircleColor3 = a.getColor(R.styleable.PieChart_circle3Color, DEFAULT_COLOR);
-            mCircleInitAngle3 = a.getFloat(R.styleable.PieChart_circle3InitialAngle, START_ANGLE_DEFAULT);
-            mCircleEndAngle3 = a.getFloat(R.styleable.PieChart_circle3EndAngle, END_ANGLE_DEFAULT);
+            mRingColors[2] = a.getColor(R.styleable.PieChart_circle3Color, DEFAULT_COLOR);
+            mRingStartAngles[2] = a.getFloat(R.styleable.PieChart_circle3InitialAngle, START_ANGLE_DEFAULT);
+            mRingSweepAngles[2] = a.getFloat(R.styleable.PieChart_circle3EndAngle, END_ANGLE_DEFAULT);
 
             // Recycle
             a.recycle();
@@ -97,60 +238,559 @@ public class PieChart extends View {
             Log.i(LOG, "Failed to load initial parameters :: " + e);
         }
 
-        mPaint = new Paint();
-        mPaint.setAntiAlias(true);
-        mPaint.setStyle(Paint.Style.STROKE);
+        mRectBase = new RectF();
+        mRectRing = new RectF();
+        mArcPathCache = new ArcPathCache();
+        mArcPathCache.ensureCapacity(mRingCount);
+        mRectSlices = new RectF();
+        mSliceModel = new SliceModel();
+
+        mRingAnimator = new RingAnimator();
+        mRingAnimator.setOnRingAnimationListener(new RingAnimator.OnRingAnimationListener() {
+            @Override
+            public void onRingAnimationUpdate(RingAnimator animator, float[] values) {
+                int count = Math.min(mRingCount, animator.getRingCount());
+                for (int i = 0; i < count; i++) {
+                    setRingSweepAndMarkDirty(i, values[i]);
+                }
+                mTransitionBaselineDirty = true;
+                invalidateDirtyRings();
+            }
+
+            @Override
+            public void onRingAnimationEnd(RingAnimator animator) {
+            }
+        });
+
+        mTransitionEngine = new TransitionEngine(new TransitionEngine.Target() {
+            @Override
+            public void setCount(int count) {
+                if (mMode == MODE_SLICES) {
+                    mSliceModel.setCount(count);
+                } else {
+                    int oldCount = mRingCount;
+                    resizeRings(count);
+                    for (int i = oldCount; i < count; i++) {
+                        mRingSweepAngles[i] = 0;
+                    }
+                }
+            }
+
+            @Override
+            public void setValue(int index, float value) {
+                if (mMode == MODE_SLICES) {
+                    mSliceModel.setValue(index, value);
+                } else {
+                    setRingSweepAndMarkDirty(index, value);
+                }
+            }
+
+            @Override
+            public void onTransitionFrame(TransitionEngine engine) {
+                if (mMode == MODE_SLICES) {
+                    // Any slice changes the angles of every slice after it
+                    invalidate();
+                } else {
+                    invalidateDirtyRings();
+                }
+            }
+        });
+
+        mAnimationScheduler = new AnimationScheduler();
+        mAnimationScheduler.add(mRingAnimator);
+        mAnimationScheduler.add(mTransitionEngine);
+
+        // Start animation, it will actually run once the chart is visible
+        animateRings();
+    }
+
+    /**
+     * Animates the chart to the given values, only the entries that changed are animated. In
+     * MODE_RINGS the values are the sweeps of the rings, in MODE_SLICES the values of the slices.
+     * New entries grow from 0 and removed ones shrink to 0 before being dropped
+     *
+     * @return returns the number of rings or slices that changed
+     */
+    public int transitionTo(float[] values) {
+        syncTransitionBaseline();
+        return mTransitionEngine.transitionTo(values, values.length);
+    }
+
+    /**
+     * Animates a single ring sweep (MODE_RINGS) or slice value (MODE_SLICES) to the given value
+     */
+    public void transitionTo(int index, float value) {
+        syncTransitionBaseline();
+        mTransitionEngine.transitionTo(index, value);
+    }
+
+    /**
+     * @return returns the engine animating the data updates, to tune its duration & easing
+     */
+    public TransitionEngine getTransitionEngine() {
+        return mTransitionEngine;
+    }
+
+    /**
+     * Lets the transition engine know about the current values when they were changed by other
+     * means (setters, live feed, intro animation) since the last transition
+     */
+    private void syncTransitionBaseline() {
+        if (!mTransitionBaselineDirty) return;
+
+        int count = mMode == MODE_SLICES ? mSliceModel.getCount() : mRingCount;
+        if (mTransitionBaseline == null || mTransitionBaseline.length < count) {
+            mTransitionBaseline = new float[count];
+        }
+        for (int i = 0; i < count; i++) {
+            mTransitionBaseline[i] = mMode == MODE_SLICES ? mSliceModel.getValue(i)
+                    : mRingSweepAngles[i];
+        }
+        mTransitionEngine.sync(mTransitionBaseline, count);
+        mTransitionBaselineDirty = false;
+    }
+
+    /**
+     * Animates every ring from 0 to its current sweep, each ring takes a bit longer than the
+     * previous one
+     */
+    public void animateRings() {
+        final long duration = mStyle.getDuration();
+        final long durationStep = mStyle.getDurationStep();
+        mRingAnimator.setRingCount(mRingCount);
+        for (int i = 0; i < mRingCount; i++) {
+            mRingAnimator.setRing(i, 0, mRingSweepAngles[i], 0, duration + i * durationStep);
+        }
+        mRingAnimator.start();
+    }
+
+    /**
+     * Binds the chart to the given data & style, running the intro animation of the rings
+     */
+    public void bind(PieChartData data, PieChartStyle style) {
+        bind(data, style, true);
+    }
+
+    /**
+     * Binds the chart to the given data & style, meant to be called from the onBindViewHolder() of
+     * a RecyclerView. Ongoing animations are stopped and the chart reuses everything it already
+     * allocated, the only allocations happen when the data has more rings or slices than any data
+     * bound to this chart before
+     *
+     * @param data the rings or slices to draw
+     * @param style the look of the chart, usually shared by every chart of the list
+     * @param animate true to run the intro animation of the rings
+     */
+    public void bind(PieChartData data, PieChartStyle style, boolean animate) {
+        mRingAnimator.cancel();
+        mTransitionEngine.stop();
+        mLastTouchedIndex = NO_HIT;
+        setStyle(style);
+
+        final int count = data.getCount();
+        if (data.getMode() == MODE_SLICES) {
+            mSliceModel.setValues(data.getValues(), count);
+            mSliceModel.setColors(data.getColors());
+        } else {
+            resizeRings(count);
+            System.arraycopy(data.getStartAngles(), 0, mRingStartAngles, 0, count);
+            System.arraycopy(data.getValues(), 0, mRingSweepAngles, 0, count);
+            System.arraycopy(data.getColors(), 0, mRingColors, 0, count);
+        }
+        setMode(data.getMode());
+        mTransitionBaselineDirty = true;
+
+        if (animate && mMode == MODE_RINGS) {
+            animateRings();
+        }
+        invalidate();
+    }
+
+    /**
+     * Applies the given style, overriding every per chart change of the track color, stroke widths
+     * & start angle of the slices. Applying the current style again does nothing
+     */
+    public void setStyle(PieChartStyle style) {
+        if (style == null) {
+            throw new IllegalArgumentException("Style can't be null");
+        }
+        if (style == mStyle) return;
+
+        mStyle = style;
+        mTrackColor = style.getTrackColor();
+        mSliceStrokeWidthPercentage = style.getSliceStrokeWidthPercentage();
+        mSlicesStartAngle = style.getSlicesStartAngle();
+        for (int i = 0; i < mRingStrokeWidthPercentages.length; i++) {
+            mRingStrokeWidthPercentages[i] = style.getRingStrokeWidthPercentage(i);
+        }
 
-        mRectCircle1 = new RectF();
-        mRectCircle2 = new RectF();
-        mRectCircle3 = new RectF();
+        if (mStrokeWidthPercentageBase != style.getStrokeWidthPercentage()) {
+            // The padding of the chart changes, the outer ring has to be placed again
+            mStrokeWidthPercentageBase = style.getStrokeWidthPercentage();
+            layoutChart();
+        } else {
+            layoutRings();
+            layoutSlices();
+        }
+        invalidateStaticLayer();
+    }
 
-        // Animation Set
-        AnimationSet set = new AnimationSet(false);
+    public PieChartStyle getStyle() {
+        return mStyle;
+    }
+
+    /**
+     * @param metrics metrics the chart records its frames into, null to stop recording
+     */
+    public void setMetrics(ViewMetrics metrics) {
+        if (mMetrics == metrics) return;
+        // The bitmaps held are moved to the new metrics
+        if (mMetrics != null) {
+            mMetrics.addBitmapBytes(-mBitmapBytes);
+        }
+        mMetrics = metrics;
+        if (metrics != null) {
+            metrics.addBitmapBytes(mBitmapBytes);
+        }
+    }
+
+    public ViewMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    @Override
+    public void invalidate() {
+        if (mMetrics != null) mMetrics.recordInvalidation();
+        super.invalidate();
+    }
 
-        // Circle 1
-        CircleAnimation animator = new CircleAnimation(this, mCircleEndAngle1, CIRCLE.CIRCLE1);
-        animator.setDuration(DEFAULT_DURATION1);
-        set.addAnimation(animator);
+    @Override
+    public void invalidate(int l, int t, int r, int b) {
+        if (mMetrics != null) mMetrics.recordInvalidation();
+        super.invalidate(l, t, r, b);
+    }
 
-        // Circle 2
-        animator = new CircleAnimation(this, mCircleEndAngle2, CIRCLE.CIRCLE2);
-        animator.setDuration(DEFAULT_DURATION2);
-        set.addAnimation(animator);
+    @Override
+    public void invalidate(Rect dirty) {
+        if (mMetrics != null) mMetrics.recordInvalidation();
+        super.invalidate(dirty);
+    }
 
-        // Circle 3
-        animator = new CircleAnimation(this, mCircleEndAngle3, CIRCLE.CIRCLE3);
-        animator.setDuration(DEFAULT_DURATION3);
-        set.addAnimation(animator);
+    @Override
+    public void postInvalidateOnAnimation() {
+        if (mMetrics != null) mMetrics.recordInvalidation();
+        super.postInvalidateOnAnimation();
+    }
 
-        // Start animation
-        startAnimation(set);
+    /**
+     * @return returns the animator driving the ring sweeps. The easing set on it is kept by
+     * animateRings(), for custom delays & durations configure every ring with setRing() and call
+     * start() on the animator directly
+     */
+    public RingAnimator getRingAnimator() {
+        return mRingAnimator;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        // Draw Circle 1
-        mPaint.setStrokeWidth(mStrokeWidthPercentageBase * mBaseSize);
-        mPaint.setColor(Color.argb(DEFAULT_ALPHA_VALUE, 0, 0, 0));
-        canvas.drawArc(mRectCircle1, 0, 360, false, mPaint);
-        mPaint.setColor(mCircleColor1);
-        canvas.drawArc(mRectCircle1, mCircleInitAngle1, mCircleEndAngle1, false, mPaint);
+        Trace.beginSection(TRACE_DRAW);
+        final ViewMetrics metrics = mMetrics;
+        final long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            drawChart(canvas);
+        } finally {
+            if (metrics != null) {
+                metrics.recordDraw(startNanos, System.nanoTime());
+            }
+            Trace.endSection();
+        }
+    }
+
+    private void drawChart(Canvas canvas) {
+        // Pick the latest values of the live feed, if any
+        if (mLiveFeed != null && mLiveFeed.onFrame()) {
+            applyLiveValues(mLiveFeed.getFrontBuffer(), mLiveFeed.getFrontCount());
+        }
+
+        // Draw the background tracks
+        if (mStaticLayerDirty) {
+            rebuildStaticLayer();
+        }
+        if (mStaticLayer != null) {
+            canvas.drawBitmap(mStaticLayer, 0, 0, null);
+        }
+
+        if (mMode == MODE_SLICES) {
+            drawSlices(canvas);
+            return;
+        }
+
+        // Draw the rings on top of the tracks
+        final RectF rect = mRectRing;
+        final int count = mRingCount;
+        for (int i = 0; i < count; i++) {
+            positionRing(i, rect);
+            mPaint.setStrokeWidth(mRingStrokeWidths[i]);
+            mPaint.setColor(mRingColors[i]);
+            canvas.drawPath(mArcPathCache.getArc(i, rect, mRingStartAngles[i],
+                    mRingSweepAngles[i]), mPaint);
+        }
+    }
+
+    /**
+     * Draws the runs of the slice model, merging first the slices that are too small to be seen
+     */
+    private void drawSlices(Canvas canvas) {
+        final SliceModel model = mSliceModel;
+        model.updateRuns(mMinRunAngle);
+
+        mPaint.setStrokeWidth(mSliceStrokeWidth);
+        final int count = model.getRunCount();
+        for (int i = 0; i < count; i++) {
+            mPaint.setColor(model.getRunColor(i));
+            canvas.drawArc(mRectSlices, mSlicesStartAngle + model.getRunStartAngle(i),
+                    model.getRunSweepAngle(i), false, mPaint);
+        }
+    }
+
+    /**
+     * Records the full 360 degrees track of every ring into the static layer. The layer bitmap is
+     * reused as long as the size of the view doesn't change
+     */
+    private void rebuildStaticLayer() {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) return;
+
+        if (mStaticLayer == null || mStaticLayer.getWidth() != width
+                || mStaticLayer.getHeight() != height) {
+            releaseStaticLayer();
+            mStaticLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mStaticLayerCanvas = new Canvas(mStaticLayer);
+            updateBitmapBytes();
+        } else {
+            mStaticLayer.eraseColor(Color.TRANSPARENT);
+        }
+
+        final RectF rect = mRectRing;
+        mPaint.setColor(mTrackColor);
+        if (mMode == MODE_SLICES) {
+            mPaint.setStrokeWidth(mSliceStrokeWidth);
+            mStaticLayerCanvas.drawArc(mRectSlices, 0, 360, false, mPaint);
+        } else {
+            for (int i = 0; i < mRingCount; i++) {
+                positionRing(i, rect);
+                mPaint.setStrokeWidth(mRingStrokeWidths[i]);
+                mStaticLayerCanvas.drawArc(rect, 0, 360, false, mPaint);
+            }
+        }
+
+        mStaticLayerDirty = false;
+    }
+
+    private void releaseStaticLayer() {
+        if (mStaticLayer != null) {
+            mStaticLayer.recycle();
+            mStaticLayer = null;
+            mStaticLayerCanvas = null;
+            updateBitmapBytes();
+        }
+        mStaticLayerDirty = true;
+    }
+
+    /**
+     * Reports to the metrics the change in the bytes of the bitmaps held by the chart
+     */
+    private void updateBitmapBytes() {
+        long bytes = mStaticLayer != null ? mStaticLayer.getAllocationByteCount() : 0;
+        if (mMetrics != null) {
+            mMetrics.addBitmapBytes(bytes - mBitmapBytes);
+        }
+        mBitmapBytes = bytes;
+    }
+
+    /**
+     * Marks the static layer as outdated, it will be rebuilt on the next draw pass
+     */
+    private void invalidateStaticLayer() {
+        mStaticLayerDirty = true;
+        invalidate();
+    }
+
+    /**
+     * Updates the sweep of a ring, marking it dirty only if the change can be seen, that is, if it
+     * changes the quantized sweep its arc is built with
+     */
+    private void setRingSweepAndMarkDirty(int ring, float sweepAngle) {
+        if (mArcPathCache.quantize(sweepAngle) != mArcPathCache.quantize(mRingSweepAngles[ring])) {
+            markRingDirty(ring);
+        }
+        mRingSweepAngles[ring] = sweepAngle;
+    }
+
+    private void markRingDirty(int ring) {
+        if (ring < mDirtyRing) {
+            mDirtyRing = ring;
+        }
+    }
+
+    /**
+     * Invalidates the band of the rings marked dirty, that is the bounds of the outermost one as
+     * every other ring is inside it. Does nothing if no ring was marked
+     */
+    private void invalidateDirtyRings() {
+        final int ring = mDirtyRing;
+        if (ring == NO_DIRTY_RING) return;
+        mDirtyRing = NO_DIRTY_RING;
+
+        if (mBaseSize <= 0 || ring >= mRingCount) {
+            invalidate();
+            return;
+        }
+        final RectF base = mRectBase;
+        float inset = mRingInsets[ring] - mRingStrokeWidths[ring] / 2f - DIRTY_MARGIN;
+        invalidate((int) Math.floor(base.left + inset), (int) Math.floor(base.top + inset),
+                (int) Math.ceil(base.right - inset), (int) Math.ceil(base.bottom - inset));
+    }
+
+    /**
+     * Sets the bounds of the given ring into the given rect
+     */
+    private void positionRing(int ring, RectF rect) {
+        final RectF base = mRectBase;
+        float inset = mRingInsets[ring];
+        rect.left = base.left + inset;
+        rect.top = base.top + inset;
+        rect.right = base.right - inset;
+        rect.bottom = base.bottom - inset;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        Trace.beginSection(TRACE_TOUCH);
+        try {
+            if (mMetrics != null) {
+                mMetrics.recordTouchEvent(event.getHistorySize() + 1);
+            }
+            return handleTouchEvent(event);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private boolean handleTouchEvent(MotionEvent event) {
+        if (mOnSliceTouchListener == null) return super.onTouchEvent(event);
+
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                mLastTouchedIndex = NO_HIT;
+                // Fall through
+            case MotionEvent.ACTION_MOVE: {
+                float x = event.getX();
+                float y = event.getY();
+                int index = mMode == MODE_SLICES ? sliceAt(x, y) : ringAt(x, y);
+
+                // Only report when the finger enters a different slice or ring
+                if (index != NO_HIT && index != mLastTouchedIndex) {
+                    final ViewMetrics metrics = mMetrics;
+                    final long startNanos = metrics != null ? System.nanoTime() : 0;
+                    if (mMode == MODE_SLICES) {
+                        mOnSliceTouchListener.onSliceTouched(this, index);
+                    } else {
+                        mOnSliceTouchListener.onRingTouched(this, index);
+                    }
+                    if (metrics != null) {
+                        metrics.recordListenerDispatch(System.nanoTime() - startNanos);
+                    }
+                }
+                mLastTouchedIndex = index;
+            }
+            break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mLastTouchedIndex = NO_HIT;
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * @return returns the slice drawn at the given view coordinates, or NO_HIT
+     */
+    public int sliceAt(float x, float y) {
+        if (mBaseSize <= 0) return NO_HIT;
+
+        float dx = x - mRectSlices.centerX();
+        float dy = y - mRectSlices.centerY();
+        float distance = dx * dx + dy * dy;
+
+        float radius = Math.min(mRectSlices.width(), mRectSlices.height()) / 2f;
+        float inner = Math.max(0, radius - mSliceStrokeWidth / 2f);
+        float outer = radius + mSliceStrokeWidth / 2f;
+        if (distance < inner * inner || distance > outer * outer) return NO_HIT;
+
+        float angle = (float) Math.toDegrees(Math.atan2(dy, dx)) - mSlicesStartAngle;
+        angle %= SliceModel.FULL_CIRCLE;
+        if (angle < 0) angle += SliceModel.FULL_CIRCLE;
+        return mSliceModel.indexAtAngle(angle);
+    }
+
+    /**
+     * @return returns the ring drawn at the given view coordinates, or NO_HIT
+     */
+    public int ringAt(float x, float y) {
+        if (mBaseSize <= 0 || mRingCount == 0) return NO_HIT;
+
+        float dx = x - mRectBase.centerX();
+        float dy = y - mRectBase.centerY();
+        float distance = (float) Math.sqrt(dx * dx + dy * dy);
+
+        int ring = ChartLayout.ringAt(mRingOuterRadii, mRingInnerRadii, mRingCount, distance);
+        return ring == ChartLayout.NO_RING ? NO_HIT : ring;
+    }
+
+    public void setOnSliceTouchListener(OnSliceTouchListener onSliceTouchListener) {
+        mOnSliceTouchListener = onSliceTouchListener;
+    }
 
-        // Draw Circle 2
-        mPaint.setStrokeWidth((mStrokeWidthPercentageBase - 0.01f) * mBaseSize);
-        mPaint.setColor(Color.argb(DEFAULT_ALPHA_VALUE, 0, 0, 0));
-        canvas.drawArc(mRectCircle2, 0, 360, false, mPaint);
-        mPaint.setColor(mCircleColor2);
-        canvas.drawArc(mRectCircle2, mCircleInitAngle2, mCircleEndAngle2, false, mPaint);
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAnimationScheduler.onAttachedToWindow(this);
+        if (mAggregator != null) {
+            registerSnapshotListener();
+            // Catch up with the snapshots published while detached
+            setSliceValues(mAggregator.getSnapshot());
+        }
+    }
 
-        // Draw Circle 3
-        mPaint.setStrokeWidth((mStrokeWidthPercentageBase - 0.02f) * mBaseSize);
-        mPaint.setColor(Color.argb(DEFAULT_ALPHA_VALUE, 0, 0, 0));
-        canvas.drawArc(mRectCircle3, 0, 360, false, mPaint);
-        mPaint.setColor(mCircleColor3);
-        canvas.drawArc(mRectCircle3, mCircleInitAngle3, mCircleEndAngle3, false, mPaint);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAnimationScheduler.onDetachedFromWindow();
+        if (mAggregator != null) {
+            mAggregator.setOnSnapshotListener(null, null);
+        }
+        // The static layer is kept, a chart recycled by a list is detached & attached again with
+        // the same size and would otherwise allocate a new layer every time it scrolls in
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        // Called before init() when the view is first created
+        if (mAnimationScheduler != null) {
+            mAnimationScheduler.onVisibilityChanged(this);
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        mAnimationScheduler.onWindowVisibilityChanged(visibility);
     }
 
     @Override
@@ -160,6 +800,18 @@ public class PieChart extends View {
             // If there is no change, skip the calculation
             if (!changed) return;
 
+            Trace.beginSection(TRACE_LAYOUT);
+            try {
+                layoutChart();
+            } finally {
+                Trace.endSection();
+            }
+        }
+
+    /**
+     * Calculates the bounds of the outer ring & then the geometry of every ring and slice
+     */
+    private void layoutChart() {
             // Make all the calculations
             int paddingLeft = getPaddingLeft();
             int paddingTop = getPaddingTop();
@@ -171,48 +823,61 @@ public class PieChart extends View {
 
             mBaseSize = Math.min(contentWidth, contentHeight);
 
-            // Calculate the base left, top
-            float mLeft;
-            float mTop;
-            float mRight;
-            float mBottom;
+            // Calculate the base left, top, right, bottom
             float padding = mStrokeWidthPercentageBase * mBaseSize;
-            if (contentHeight > contentWidth) {
-                mLeft = padding / 2f;
-                mTop = (contentHeight - contentWidth + padding) / 2f;
-                mRight = contentWidth - padding / 2f;
-                mBottom = contentHeight - mTop;
-            } else if (contentWidth > contentHeight) {
-                mLeft = (contentWidth - contentHeight + padding) / 2f;
-                mTop = padding / 2f;
-                mRight = (contentWidth + contentHeight - padding) / 2f;
-                mBottom = contentHeight - padding / 2f;
-            } else {
-                mLeft = padding / 2f;
-                mTop = padding / 2f;
-                mRight = contentWidth - padding / 2f;
-                mBottom = contentHeight - padding / 2f;
-            }
+            final float[] bounds = mLayoutBounds;
+            ChartLayout.squareBounds(contentWidth, contentHeight, padding, bounds);
 
-            // Measure & Position Circle 1
-            mRectCircle1.left = mLeft + paddingLeft;
-            mRectCircle1.top = mTop + paddingTop;
-            mRectCircle1.right = mRight + paddingRight;
-            mRectCircle1.bottom = mBottom + paddingBottom;
+            // Measure & Position the outer ring
+            mRectBase.left = bounds[0] + paddingLeft;
+            mRectBase.top = bounds[1] + paddingTop;
+            mRectBase.right = bounds[2] + paddingRight;
+            mRectBase.bottom = bounds[3] + paddingBottom;
 
-            // Measure & Position Circle 2
-            mRectCircle2.left = mRectCircle1.left + 3 * padding;
-            mRectCircle2.top = mRectCircle1.top + 3 * padding;
-            mRectCircle2.right = mRectCircle1.right - 3 * padding;
-            mRectCircle2.bottom = mRectCircle1.bottom - 3 * padding;
+            // Measure & Position the rest of the rings
+            layoutRings();
 
-            // Measure & Position Circle 3
-            mRectCircle3.left = mRectCircle1.left + 5 * padding;
-            mRectCircle3.top = mRectCircle1.top + 5 * padding;
-            mRectCircle3.right = mRectCircle1.right - 5 * padding;
-            mRectCircle3.bottom = mRectCircle1.bottom - 5 * padding;
+            // Measure & Position the slices
+            layoutSlices();
         }
 
+    /**
+     * Calculates the bounds of the donut drawn in MODE_SLICES & the minimum angle a run of slices
+     * needs to cover one pixel of arc length
+     */
+    private void layoutSlices() {
+        if (mBaseSize <= 0) return;
+
+        float padding = mStrokeWidthPercentageBase * mBaseSize;
+        mSliceStrokeWidth = mSliceStrokeWidthPercentage * mBaseSize;
+        float inset = (mSliceStrokeWidth - padding) / 2f;
+        mRectSlices.set(mRectBase.left + inset, mRectBase.top + inset,
+                mRectBase.right - inset, mRectBase.bottom - inset);
+
+        float radius = Math.min(mRectSlices.width(), mRectSlices.height()) / 2f;
+        mMinRunAngle = radius > 0 ? (float) Math.toDegrees(MIN_RUN_LENGTH / radius)
+                : SliceModel.FULL_CIRCLE;
+
+        invalidateStaticLayer();
+    }
+
+    /**
+     * Calculates the inset & stroke width of every ring relative to the outer ring. The rings are
+     * spread with a constant pitch, which shrinks when needed so that all of them fit. Three rings
+     * keep the insets of the original chart
+     */
+    private void layoutRings() {
+        if (mBaseSize <= 0) return;
+
+        float padding = mStrokeWidthPercentageBase * mBaseSize;
+        float baseRadius = Math.min(mRectBase.width(), mRectBase.height()) / 2f;
+        ChartLayout.layoutRings(mBaseSize, baseRadius, padding, mRingStrokeWidthPercentages,
+                mRingCount, mRingInsets, mRingStrokeWidths, mRingOuterRadii, mRingInnerRadii);
+
+        mArcPathCache.invalidate();
+        invalidateStaticLayer();
+    }
+
     // Measure the custom view to the specified size
     public void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
 
@@ -253,123 +918,488 @@ public class PieChart extends View {
     }
 
     /**
-     * This inner class is the responsible of adding the animation
-     * feature to the graph drawing process
+     * @param ringCount number of rings to draw. The ring arrays only grow, existing values are kept
+     *                  & new rings get the default angles, color & a thinner stroke than the
+     *                  previous one
      */
-    private static class CircleAnimation extends Animation {
+    public void setRingCount(int ringCount) {
+        resizeRings(ringCount);
+        mTransitionBaselineDirty = true;
+    }
+
+    private void resizeRings(int ringCount) {
+        if (ringCount < 0) {
+            throw new IllegalArgumentException("Invalid ring count :: " + ringCount);
+        }
 
-        private PieChart pieChart;
-        private float newAngle;
-        private CIRCLE circleNum;
+        int capacity = mRingSweepAngles == null ? 0 : mRingSweepAngles.length;
+        if (ringCount > capacity) {
+            mRingStartAngles = grow(mRingStartAngles, ringCount);
+            mRingSweepAngles = grow(mRingSweepAngles, ringCount);
+            mRingColors = grow(mRingColors, ringCount);
+            mRingStrokeWidthPercentages = grow(mRingStrokeWidthPercentages, ringCount);
+            mRingInsets = grow(mRingInsets, ringCount);
+            mRingStrokeWidths = grow(mRingStrokeWidths, ringCount);
+            mRingOuterRadii = grow(mRingOuterRadii, ringCount);
+            mRingInnerRadii = grow(mRingInnerRadii, ringCount);
 
-        public CircleAnimation(PieChart pieChart, float newAngle, CIRCLE circleNum) {
-            this.newAngle = newAngle;
-            this.pieChart = pieChart;
-            this.circleNum = circleNum;
+            for (int i = capacity; i < ringCount; i++) {
+                mRingStartAngles[i] = START_ANGLE_DEFAULT;
+                mRingSweepAngles[i] = END_ANGLE_DEFAULT;
+                mRingColors[i] = DEFAULT_COLOR;
+                mRingStrokeWidthPercentages[i] = mStyle.getRingStrokeWidthPercentage(i);
+            }
         }
 
-        @Override
-        protected void applyTransformation(float interpolatedTime, Transformation transformation) {
-            float angle = newAngle * interpolatedTime;
-            if (circleNum == CIRCLE.CIRCLE1) {
-                pieChart.setCircleEndAngle1(angle);
-            } else if (circleNum == CIRCLE.CIRCLE2) {
-                pieChart.setCircleEndAngle2(angle);
-            } else if (circleNum == CIRCLE.CIRCLE3) {
-                pieChart.setCircleEndAngle3(angle);
+        mRingCount = ringCount;
+        if (mArcPathCache != null) {
+            mArcPathCache.ensureCapacity(ringCount);
+        }
+        layoutRings();
+        invalidate();
+    }
+
+    /**
+     * @return returns the number of rings drawn by the chart
+     */
+    public int getRingCount() {
+        return mRingCount;
+    }
+
+    /**
+     * Bulk update of the ring model, the ring count is set to the length of the given arrays
+     *
+     * @param startAngles initial angle of every ring
+     * @param sweepAngles sweep of every ring
+     * @param colors color of every ring
+     */
+    public void setRings(float[] startAngles, float[] sweepAngles, int[] colors) {
+        mTransitionBaselineDirty = true;
+        int count = sweepAngles.length;
+        if (startAngles.length != count || colors.length != count) {
+            throw new IllegalArgumentException("Ring arrays must have the same length");
+        }
+
+        setRingCount(count);
+        System.arraycopy(startAngles, 0, mRingStartAngles, 0, count);
+        System.arraycopy(sweepAngles, 0, mRingSweepAngles, 0, count);
+        System.arraycopy(colors, 0, mRingColors, 0, count);
+        invalidate();
+    }
+
+    /**
+     * Updates a single ring and the UI
+     */
+    public void setRing(int ring, float startAngle, float sweepAngle, int color) {
+        mTransitionBaselineDirty = true;
+        checkRingIndex(ring);
+        mRingStartAngles[ring] = startAngle;
+        mRingSweepAngles[ring] = sweepAngle;
+        mRingColors[ring] = color;
+        markRingDirty(ring);
+        invalidateDirtyRings();
+    }
+
+    /**
+     * @return returns the initial angle of the given ring
+     */
+    public float getRingStartAngle(int ring) {
+        checkRingIndex(ring);
+        return mRingStartAngles[ring];
+    }
+
+    /**
+     * @param startAngle update the initial angle of the given ring and update the UI
+     */
+    public void setRingStartAngle(int ring, float startAngle) {
+        checkRingIndex(ring);
+        if (mArcPathCache.quantize(startAngle) != mArcPathCache.quantize(mRingStartAngles[ring])) {
+            markRingDirty(ring);
+        }
+        mRingStartAngles[ring] = startAngle;
+        invalidateDirtyRings();
+    }
+
+    /**
+     * @return returns the sweep of the given ring
+     */
+    public float getRingSweepAngle(int ring) {
+        checkRingIndex(ring);
+        return mRingSweepAngles[ring];
+    }
+
+    /**
+     * @param sweepAngle update the sweep of the given ring and update the UI
+     */
+    public void setRingSweepAngle(int ring, float sweepAngle) {
+        mTransitionBaselineDirty = true;
+        checkRingIndex(ring);
+        setRingSweepAndMarkDirty(ring, sweepAngle);
+        invalidateDirtyRings();
+    }
+
+    /**
+     * @return returns the color of the given ring
+     */
+    public int getRingColor(int ring) {
+        checkRingIndex(ring);
+        return mRingColors[ring];
+    }
+
+    /**
+     * @param color update the color of the given ring and update the UI
+     */
+    public void setRingColor(int ring, int color) {
+        checkRingIndex(ring);
+        if (mRingColors[ring] == color) return;
+        mRingColors[ring] = color;
+        markRingDirty(ring);
+        invalidateDirtyRings();
+    }
+
+    /**
+     * @param strokeWidthPercentage update the stroke width of the given ring, as a percentage of
+     *                              the chart size, and update the UI
+     */
+    public void setRingStrokeWidthPercentage(int ring, float strokeWidthPercentage) {
+        checkRingIndex(ring);
+        mRingStrokeWidthPercentages[ring] = strokeWidthPercentage;
+        layoutRings();
+        invalidate();
+    }
+
+    /**
+     * @param mode MODE_RINGS to draw the concentric rings or MODE_SLICES to draw the slices of the
+     *             slice model as a donut
+     */
+    public void setMode(int mode) {
+        if (mode != MODE_RINGS && mode != MODE_SLICES) {
+            throw new IllegalArgumentException("Invalid mode :: " + mode);
+        }
+        if (mMode == mode) return;
+        mTransitionEngine.stop();
+        mTransitionBaselineDirty = true;
+        mMode = mode;
+        invalidateStaticLayer();
+    }
+
+    /**
+     * @return returns MODE_RINGS or MODE_SLICES
+     */
+    public int getMode() {
+        return mMode;
+    }
+
+    /**
+     * Replaces the slices of the chart, switches to MODE_SLICES & updates the UI
+     *
+     * @param values the value of every slice, there is no limit in the number of slices
+     * @param colors palette used to paint the slices, slice i takes the color i % colors.length
+     */
+    public void setSliceValues(float[] values, int[] colors) {
+        mSliceModel.setValues(values, values.length);
+        mTransitionBaselineDirty = true;
+        mSliceModel.setColors(colors);
+        setMode(MODE_SLICES);
+        invalidate();
+    }
+
+    /**
+     * Replaces the slices of the chart keeping the current palette, switches to MODE_SLICES &
+     * updates the UI
+     */
+    public void setSliceValues(float[] values) {
+        mSliceModel.setValues(values, values.length);
+        mTransitionBaselineDirty = true;
+        setMode(MODE_SLICES);
+        invalidate();
+    }
+
+    /**
+     * Replaces the slices of the chart with the totals of the given snapshot, keeping the current
+     * palette, switches to MODE_SLICES & updates the UI
+     */
+    public void setSliceValues(AggregateSnapshot snapshot) {
+        mSliceModel.setValues(snapshot);
+        mTransitionBaselineDirty = true;
+        setMode(MODE_SLICES);
+        invalidate();
+    }
+
+    /**
+     * Feeds the slices of the chart from the given aggregator, every snapshot it publishes
+     * replaces the slices on the UI thread. Pass null to stop listening to the current one. The
+     * chart only listens while it is attached to a window, so a long lived aggregator doesn't hold
+     * a detached chart
+     */
+    public void setAggregator(CategoryAggregator aggregator) {
+        if (mAggregator != null) {
+            mAggregator.setOnSnapshotListener(null, null);
+        }
+        mAggregator = aggregator;
+        if (aggregator == null || !isAttachedToWindow()) return;
+
+        registerSnapshotListener();
+    }
+
+    private void registerSnapshotListener() {
+        if (mSnapshotListener == null) {
+            mSnapshotListener = new CategoryAggregator.OnSnapshotListener() {
+                @Override
+                public void onSnapshot(CategoryAggregator aggregator, AggregateSnapshot snapshot) {
+                    if (aggregator == mAggregator) {
+                        setSliceValues(snapshot);
+                    }
+                }
+            };
+        }
+        mAggregator.setOnSnapshotListener(mSnapshotListener, MAIN_THREAD_EXECUTOR);
+    }
+
+    /**
+     * Attaches a live feed to the chart. In MODE_RINGS the values of the feed are the sweeps of the
+     * rings, in MODE_SLICES they are the values of the slices. Pass null to detach the current one
+     */
+    public void setLiveFeed(LiveFeed liveFeed) {
+        if (mLiveFeed != null) {
+            mLiveFeed.setOnFrameRequestListener(null);
+        }
+        mLiveFeed = liveFeed;
+        if (liveFeed == null) return;
+
+        liveFeed.setOnFrameRequestListener(new LiveFeed.OnFrameRequestListener() {
+            @Override
+            public void onFrameRequested(LiveFeed liveFeed) {
+                // Called from the producer thread
+                postInvalidateOnAnimation();
             }
-            pieChart.invalidate();
+        });
+        postInvalidateOnAnimation();
+    }
+
+    public LiveFeed getLiveFeed() {
+        return mLiveFeed;
+    }
+
+    /**
+     * Copies the values received from the live feed into the model being drawn
+     */
+    private void applyLiveValues(float[] values, int count) {
+        mTransitionBaselineDirty = true;
+        if (mMode == MODE_SLICES) {
+            mSliceModel.setValues(values, count);
+        } else {
+            System.arraycopy(values, 0, mRingSweepAngles, 0, Math.min(count, mRingCount));
+        }
+    }
+
+    /**
+     * Updates a single slice, only the slices after it are recalculated, and updates the UI
+     */
+    public void setSliceValue(int slice, float value) {
+        mTransitionBaselineDirty = true;
+        mSliceModel.setValue(slice, value);
+        invalidate();
+    }
+
+    /**
+     * @return returns the model of the slices drawn in MODE_SLICES
+     */
+    public SliceModel getSliceModel() {
+        return mSliceModel;
+    }
+
+    /**
+     * @param startAngle update the angle the first slice starts at and update the UI
+     */
+    public void setSlicesStartAngle(float startAngle) {
+        mSlicesStartAngle = startAngle;
+        invalidate();
+    }
+
+    public float getSlicesStartAngle() {
+        return mSlicesStartAngle;
+    }
+
+    /**
+     * @param strokeWidthPercentage update the width of the donut, as a percentage of the chart
+     *                              size, and update the UI
+     */
+    public void setSliceStrokeWidthPercentage(float strokeWidthPercentage) {
+        mSliceStrokeWidthPercentage = strokeWidthPercentage;
+        layoutSlices();
+        invalidate();
+    }
+
+    /**
+     * @return returns the cache holding the geometry of the rings, useful to tune its angle
+     * resolution & to check its hit/miss counters
+     */
+    public ArcPathCache getArcPathCache() {
+        return mArcPathCache;
+    }
+
+    /**
+     * @return returns the color of the background track drawn behind every ring
+     */
+    public int getTrackColor() {
+        return mTrackColor;
+    }
+
+    /**
+     * @param trackColor update the color of the background tracks and update the UI
+     */
+    public void setTrackColor(int trackColor) {
+        mTrackColor = trackColor;
+        invalidateStaticLayer();
+    }
+
+    private void checkRingIndex(int ring) {
+        if (ring < 0 || ring >= mRingCount) {
+            throw new IndexOutOfBoundsException("Invalid ring :: " + ring + ", count :: " + mRingCount);
         }
     }
 
+    private static Paint newPaint() {
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setStyle(Paint.Style.STROKE);
+        return paint;
+    }
+
+    private static float[] grow(float[] array, int size) {
+        float[] result = new float[size];
+        if (array != null) System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    private static int[] grow(int[] array, int size) {
+        int[] result = new int[size];
+        if (array != null) System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
     /**
-     * @return returns the first circle's initial angle
+     * @return returns the first circle's initial angle, or the default one if the chart
+     * has less rings
+     * @deprecated use getRingStartAngle(0)
      */
+    @Deprecated
     public float getCircleInitAngle1() {
-        return mCircleInitAngle1;
+        return mRingCount > 0 ? getRingStartAngle(0) : START_ANGLE_DEFAULT;
     }
 
     /**
-     * @param circleInitAngle1 update the initial angle of the first circle and update the UI
+     * @param circleInitAngle1 update the initial angle of the first circle and update the UI.
+     *                          Ignored if the chart has less rings
+     * @deprecated use setRingStartAngle(0, angle)
      */
+    @Deprecated
     public void setCircleInitAngle1(float circleInitAngle1) {
-        this.mCircleInitAngle1 = circleInitAngle1;
-        invalidate();
+        if (mRingCount <= 0) return;
+        setRingStartAngle(0, circleInitAngle1);
     }
 
     /**
-     * @return returns the first circle's end angle
+     * @return returns the first circle's end angle, or the default one if the chart has less rings
+     * @deprecated use getRingSweepAngle(0)
      */
+    @Deprecated
     public float getCircleEndAngle1() {
-        return mCircleEndAngle1;
+        return mRingCount > 0 ? getRingSweepAngle(0) : END_ANGLE_DEFAULT;
     }
 
     /**
-     * @param circleEndAngle1 update the end angle of the first circle and update the UI
+     * @param circleEndAngle1 update the end angle of the first circle and update the UI.
+     *                         Ignored if the chart has less rings
+     * @deprecated use setRingSweepAngle(0, angle)
      */
+    @Deprecated
     public void setCircleEndAngle1(float circleEndAngle1) {
-        this.mCircleEndAngle1 = circleEndAngle1;
-        invalidate();
+        if (mRingCount <= 0) return;
+        setRingSweepAngle(0, circleEndAngle1);
     }
 
     /**
-     * @return returns the second circle's initial angle
+     * @return returns the second circle's initial angle, or the default one if the chart
+     * has less rings
+     * @deprecated use getRingStartAngle(1)
      */
+    @Deprecated
     public float getCircleInitAngle2() {
-        return mCircleInitAngle2;
+        return mRingCount > 1 ? getRingStartAngle(1) : START_ANGLE_DEFAULT;
     }
 
     /**
-     * @param circleInitAngle2 update the initial angle of the second circle and update the UI
+     * @param circleInitAngle2 update the initial angle of the second circle and update the UI.
+     *                          Ignored if the chart has less rings
+     * @deprecated use setRingStartAngle(1, angle)
      */
+    @Deprecated
     public void setCircleInitAngle2(float circleInitAngle2) {
-        this.mCircleInitAngle2 = circleInitAngle2;
-        invalidate();
+        if (mRingCount <= 1) return;
+        setRingStartAngle(1, circleInitAngle2);
     }
 
     /**
-     * @return returns the second circle's end angle
+     * @return returns the second circle's end angle, or the default one if the chart has less rings
+     * @deprecated use getRingSweepAngle(1)
      */
+    @Deprecated
     public float getCircleEndAngle2() {
-        return mCircleEndAngle2;
+        return mRingCount > 1 ? getRingSweepAngle(1) : END_ANGLE_DEFAULT;
     }
 
     /**
-     * @param circleEndAngle2 update the end angle of the second circle and update the UI
+     * @param circleEndAngle2 update the end angle of the second circle and update the UI.
+     *                         Ignored if the chart has less rings
+     * @deprecated use setRingSweepAngle(1, angle)
      */
+    @Deprecated
     public void setCircleEndAngle2(float circleEndAngle2) {
-        this.mCircleEndAngle2 = circleEndAngle2;
-        invalidate();
+        if (mRingCount <= 1) return;
+        setRingSweepAngle(1, circleEndAngle2);
     }
 
     /**
-     * @return returns the third circle's initial angle
+     * @return returns the third circle's initial angle, or the default one if the chart
+     * has less rings
+     * @deprecated use getRingStartAngle(2)
      */
+    @Deprecated
     public float getCircleInitAngle3() {
-        return mCircleInitAngle3;
+        return mRingCount > 2 ? getRingStartAngle(2) : START_ANGLE_DEFAULT;
     }
 
     /**
-     * @param circleInitAngle3 update the initial angle of the third circle and update the UI
+     * @param circleInitAngle3 update the initial angle of the third circle and update the UI.
+     *                          Ignored if the chart has less rings
+     * @deprecated use setRingStartAngle(2, angle)
      */
+    @Deprecated
     public void setCircleInitAngle3(float circleInitAngle3) {
-        this.mCircleInitAngle3 = circleInitAngle3;
-        invalidate();
+        if (mRingCount <= 2) return;
+        setRingStartAngle(2, circleInitAngle3);
     }
 
     /**
-     * @return returns the third circle's end angle
+     * @return returns the third circle's end angle, or the default one if the chart has less rings
+     * @deprecated use getRingSweepAngle(2)
      */
+    @Deprecated
     public float getCircleEndAngle3() {
-        return mCircleEndAngle3;
+        return mRingCount > 2 ? getRingSweepAngle(2) : END_ANGLE_DEFAULT;
     }
 
     /**
-     * @param circleEndAngle3 update the end angle of the third circle and update the UI
+     * @param circleEndAngle3 update the end angle of the third circle and update the UI.
+     *                         Ignored if the chart has less rings
+     * @deprecated use setRingSweepAngle(2, angle)
      */
+    @Deprecated
     public void setCircleEndAngle3(float circleEndAngle3) {
-        this.mCircleEndAngle3 = circleEndAngle3;
-        invalidate();
+        if (mRingCount <= 2) return;
+        setRingSweepAngle(2, circleEndAngle3);
     }
 
 }
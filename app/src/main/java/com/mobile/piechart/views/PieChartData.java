@@ -0,0 +1,99 @@
+package com.mobile.piechart.views;
+
+/**
+ * @author David Castillo Fuentes
+ * Immutable data of a PieChart, either a set of rings or a set of slices. It is the model of a
+ * list item, built once per item & bound to whichever chart is showing the item with
+ * PieChart.bind(). Binding copies the values into the chart, so the data can be shared by any
+ * number of charts.
+ */
+public final class PieChartData {
+
+    private final int mMode;
+    private final int mCount;
+    // Start angle of every ring, null for slices
+    private final float[] mStartAngles;
+    // Sweep of every ring or value of every slice
+    private final float[] mValues;
+    // Color of every ring or palette of the slices
+    private final int[] mColors;
+
+    private PieChartData(int mode, float[] startAngles, float[] values, int[] colors) {
+        mMode = mode;
+        mCount = values.length;
+        mStartAngles = startAngles;
+        mValues = values;
+        mColors = colors;
+    }
+
+    /**
+     * @param startAngles initial angle of every ring
+     * @param sweepAngles sweep of every ring
+     * @param colors color of every ring
+     * @return returns the data of a chart drawn in PieChart.MODE_RINGS
+     */
+    public static PieChartData ofRings(float[] startAngles, float[] sweepAngles, int[] colors) {
+        int count = sweepAngles.length;
+        if (startAngles.length != count || colors.length != count) {
+            throw new IllegalArgumentException("Ring arrays must have the same length");
+        }
+        return new PieChartData(PieChart.MODE_RINGS, startAngles.clone(), sweepAngles.clone(),
+                colors.clone());
+    }
+
+    /**
+     * @param values the value of every slice
+     * @param colors palette used to paint the slices, slice i takes the color i % colors.length
+     * @return returns the data of a chart drawn in PieChart.MODE_SLICES
+     */
+    public static PieChartData ofSlices(float[] values, int[] colors) {
+        if (colors == null || colors.length == 0) {
+            throw new IllegalArgumentException("At least one color is required");
+        }
+        return new PieChartData(PieChart.MODE_SLICES, null, values.clone(), colors.clone());
+    }
+
+    /**
+     * @return returns PieChart.MODE_RINGS or PieChart.MODE_SLICES
+     */
+    public int getMode() {
+        return mMode;
+    }
+
+    /**
+     * @return returns the number of rings or slices
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return returns the initial angle of the given ring, 0 for slices
+     */
+    public float getStartAngle(int index) {
+        return mStartAngles == null ? 0 : mStartAngles[index];
+    }
+
+    /**
+     * @return returns the sweep of the given ring or the value of the given slice
+     */
+    public float getValue(int index) {
+        return mValues[index];
+    }
+
+    public int getColor(int index) {
+        return mColors[index % mColors.length];
+    }
+
+    float[] getStartAngles() {
+        return mStartAngles;
+    }
+
+    float[] getValues() {
+        return mValues;
+    }
+
+    int[] getColors() {
+        return mColors;
+    }
+}
@@ -0,0 +1,155 @@
+package com.mobile.piechart.views;
+
+import android.graphics.Color;
+
+/**
+ * @author David Castillo Fuentes
+ * Immutable look of a PieChart: track color, stroke widths, start angle of the slices & duration
+ * of the intro animation. A style is meant to be built once and shared by every chart of a list,
+ * binding it to a chart doesn't allocate anything.
+ *
+ * A style only holds immutable values, so it can be shared by charts drawn from any thread. Every
+ * chart draws with a Paint of its own.
+ */
+public final class PieChartStyle {
+
+    public static final float DEFAULT_STROKE_WIDTH_PERCENTAGE = 0.07f;
+    public static final float DEFAULT_SLICE_STROKE_WIDTH_PERCENTAGE = 0.2f;
+    public static final float DEFAULT_SLICES_START_ANGLE = -90;
+    public static final int DEFAULT_TRACK_COLOR = Color.argb(50, 0, 0, 0);
+    public static final long DEFAULT_DURATION = 1500;
+    public static final long DEFAULT_DURATION_STEP = 500;
+    private static final float STROKE_WIDTH_PERCENTAGE_STEP = 0.01f;
+    private static final float MIN_STROKE_WIDTH_PERCENTAGE = 0.01f;
+
+    /**
+     * Style of the charts that weren't bound to any other one
+     */
+    public static final PieChartStyle DEFAULT = new Builder().build();
+
+    private final int mTrackColor;
+    private final float mStrokeWidthPercentage;
+    private final float[] mRingStrokeWidthPercentages;
+    private final float mSliceStrokeWidthPercentage;
+    private final float mSlicesStartAngle;
+    private final long mDuration;
+    private final long mDurationStep;
+
+    private PieChartStyle(Builder builder) {
+        mTrackColor = builder.mTrackColor;
+        mStrokeWidthPercentage = builder.mStrokeWidthPercentage;
+        mRingStrokeWidthPercentages = builder.mRingStrokeWidthPercentages == null ? null
+                : builder.mRingStrokeWidthPercentages.clone();
+        mSliceStrokeWidthPercentage = builder.mSliceStrokeWidthPercentage;
+        mSlicesStartAngle = builder.mSlicesStartAngle;
+        mDuration = builder.mDuration;
+        mDurationStep = builder.mDurationStep;
+    }
+
+    /**
+     * @return returns the color of the background track drawn behind every ring
+     */
+    public int getTrackColor() {
+        return mTrackColor;
+    }
+
+    /**
+     * @return returns the stroke width of the outer ring, as a percentage of the chart size. It is
+     * also the padding around the chart
+     */
+    public float getStrokeWidthPercentage() {
+        return mStrokeWidthPercentage;
+    }
+
+    /**
+     * @return returns the stroke width of the given ring, as a percentage of the chart size. Unless
+     * given explicitly, every ring is a bit thinner than the previous one
+     */
+    public float getRingStrokeWidthPercentage(int ring) {
+        if (mRingStrokeWidthPercentages != null && ring < mRingStrokeWidthPercentages.length) {
+            return mRingStrokeWidthPercentages[ring];
+        }
+        return Math.max(MIN_STROKE_WIDTH_PERCENTAGE,
+                mStrokeWidthPercentage - ring * STROKE_WIDTH_PERCENTAGE_STEP);
+    }
+
+    /**
+     * @return returns the width of the donut drawn in MODE_SLICES, as a percentage of the chart size
+     */
+    public float getSliceStrokeWidthPercentage() {
+        return mSliceStrokeWidthPercentage;
+    }
+
+    public float getSlicesStartAngle() {
+        return mSlicesStartAngle;
+    }
+
+    /**
+     * @return returns the milliseconds the first ring takes in the intro animation
+     */
+    public long getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * @return returns the extra milliseconds every ring takes over the previous one in the intro
+     * animation
+     */
+    public long getDurationStep() {
+        return mDurationStep;
+    }
+
+    public static class Builder {
+
+        private int mTrackColor = DEFAULT_TRACK_COLOR;
+        private float mStrokeWidthPercentage = DEFAULT_STROKE_WIDTH_PERCENTAGE;
+        private float[] mRingStrokeWidthPercentages;
+        private float mSliceStrokeWidthPercentage = DEFAULT_SLICE_STROKE_WIDTH_PERCENTAGE;
+        private float mSlicesStartAngle = DEFAULT_SLICES_START_ANGLE;
+        private long mDuration = DEFAULT_DURATION;
+        private long mDurationStep = DEFAULT_DURATION_STEP;
+
+        public Builder setTrackColor(int trackColor) {
+            mTrackColor = trackColor;
+            return this;
+        }
+
+        public Builder setStrokeWidthPercentage(float strokeWidthPercentage) {
+            mStrokeWidthPercentage = strokeWidthPercentage;
+            return this;
+        }
+
+        /**
+         * @param ringStrokeWidthPercentages stroke width of the first rings, the rings after them
+         *                                   get the default ones
+         */
+        public Builder setRingStrokeWidthPercentages(float... ringStrokeWidthPercentages) {
+            mRingStrokeWidthPercentages = ringStrokeWidthPercentages;
+            return this;
+        }
+
+        public Builder setSliceStrokeWidthPercentage(float sliceStrokeWidthPercentage) {
+            mSliceStrokeWidthPercentage = sliceStrokeWidthPercentage;
+            return this;
+        }
+
+        public Builder setSlicesStartAngle(float slicesStartAngle) {
+            mSlicesStartAngle = slicesStartAngle;
+            return this;
+        }
+
+        /**
+         * @param duration milliseconds the first ring takes in the intro animation
+         * @param durationStep extra milliseconds every ring takes over the previous one
+         */
+        public Builder setDuration(long duration, long durationStep) {
+            mDuration = Math.max(0, duration);
+            mDurationStep = Math.max(0, durationStep);
+            return this;
+        }
+
+        public PieChartStyle build() {
+            return new PieChartStyle(this);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.mobile.piechart.views;
+
+import com.mobile.piechart.animation.FrameClock;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author David Castillo Fuentes
+ * Delivers the progress of a DialView to its OnDialViewChangeListener.
+ *
+ * In DialView.DISPATCH_MODE_IMMEDIATE every change is delivered as soon as it happens, as the
+ * touch events are processed. In DialView.DISPATCH_MODE_COALESCED changes are held until the next
+ * frame of the shared FrameClock, or until the dispatch interval has elapsed, and only the last one
+ * is delivered, if it differs from the last progress delivered.
+ *
+ * With an Executor the listener is called on it instead of on the UI thread. Only one delivery is
+ * queued at a time and it reads the latest progress when it runs, so a slow listener skips the
+ * values it couldn't keep up with instead of queueing them all.
+ *
+ * With ViewMetrics set, the latency of every delivery is recorded, from the first change it
+ * reports to the end of the listener call.
+ *
+ * Every method but the delivery itself must be called from the UI thread. Nothing allocates once
+ * the dispatcher is created.
+ */
+final class ProgressDispatcher implements FrameClock.FrameCallback {
+
+    private static final long NO_PROGRESS = Long.MIN_VALUE;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final DialView mDialView;
+    private volatile DialView.OnDialViewChangeListener mListener;
+    private int mMode = DialView.DISPATCH_MODE_IMMEDIATE;
+    private long mIntervalNanos;
+    private Executor mExecutor;
+    private volatile ViewMetrics mMetrics;
+
+    // Coalesced mode, progress waiting for the next frame & the last one delivered
+    private long mPendingProgress = NO_PROGRESS;
+    private long mDispatchedProgress = NO_PROGRESS;
+    private long mLastDispatchNanos;
+    private boolean mScheduled;
+    // Time of the first change not delivered yet, 0 when none or without metrics
+    private long mPendingSinceNanos;
+
+    // Executor delivery, latest value wins
+    private final AtomicLong mLatestProgress = new AtomicLong();
+    private final AtomicBoolean mLatestChanged = new AtomicBoolean();
+    private final AtomicBoolean mDeliveryQueued = new AtomicBoolean();
+    private final AtomicLong mLatestSinceNanos = new AtomicLong();
+    private final Runnable mDeliverRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // Cleared before reading, a value set after this point queues another delivery
+            mDeliveryQueued.set(false);
+            long progress = mLatestProgress.get();
+            boolean changed = mLatestChanged.getAndSet(false);
+            long sinceNanos = mLatestSinceNanos.getAndSet(0);
+            callListener(progress, changed, sinceNanos);
+        }
+    };
+
+    ProgressDispatcher(DialView dialView) {
+        mDialView = dialView;
+    }
+
+    void setListener(DialView.OnDialViewChangeListener listener) {
+        mListener = listener;
+    }
+
+    void setMode(int mode) {
+        if (mode == mMode) return;
+        // Don't lose the progress held for the next frame
+        flush();
+        mMode = mode;
+    }
+
+    int getMode() {
+        return mMode;
+    }
+
+    /**
+     * @param intervalMillis min time between two deliveries in coalesced mode, 0 for one per frame
+     */
+    void setInterval(long intervalMillis) {
+        mIntervalNanos = intervalMillis * NANOS_PER_MILLI;
+    }
+
+    long getInterval() {
+        return mIntervalNanos / NANOS_PER_MILLI;
+    }
+
+    void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    Executor getExecutor() {
+        return mExecutor;
+    }
+
+    void setMetrics(ViewMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Called by the view every time its progress is updated
+     *
+     * @param changed true if the progress reached another step since the previous update
+     */
+    void dispatch(long progress, boolean changed) {
+        if (mListener == null) return;
+        long nowNanos = mMetrics != null ? System.nanoTime() : 0;
+        if (mMode == DialView.DISPATCH_MODE_IMMEDIATE) {
+            deliver(progress, changed, nowNanos);
+            return;
+        }
+
+        mPendingProgress = progress;
+        if (mPendingSinceNanos == 0) {
+            mPendingSinceNanos = nowNanos;
+        }
+        if (!mScheduled) {
+            mScheduled = true;
+            FrameClock.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Delivers right away the progress held for the next frame, if any
+     */
+    void flush() {
+        if (!mScheduled) return;
+        mScheduled = false;
+        FrameClock.getInstance().removeFrameCallback(this);
+        deliverPending(System.nanoTime());
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        if (mPendingProgress == mDispatchedProgress) {
+            // Back to the last value delivered, nothing is pending anymore
+            mPendingSinceNanos = 0;
+            return;
+        }
+
+        if (mIntervalNanos > 0 && frameTimeNanos - mLastDispatchNanos < mIntervalNanos) {
+            // Too soon, try again on the next frame
+            mScheduled = true;
+            FrameClock.getInstance().postFrameCallback(this);
+            return;
+        }
+        deliverPending(frameTimeNanos);
+    }
+
+    private void deliverPending(long timeNanos) {
+        long sinceNanos = mPendingSinceNanos;
+        mPendingSinceNanos = 0;
+        // The progress may have gone back to the last value delivered
+        if (mPendingProgress == mDispatchedProgress) return;
+        mDispatchedProgress = mPendingProgress;
+        mLastDispatchNanos = timeNanos;
+        deliver(mDispatchedProgress, true, sinceNanos);
+    }
+
+    /**
+     * @param sinceNanos time of the first change reported, 0 if not measured
+     */
+    private void deliver(long progress, boolean changed, long sinceNanos) {
+        if (mExecutor == null) {
+            callListener(progress, changed, sinceNanos);
+            return;
+        }
+
+        mLatestProgress.set(progress);
+        if (changed) {
+            mLatestChanged.set(true);
+        }
+        // The oldest change still waiting for a delivery is kept
+        if (sinceNanos != 0) {
+            mLatestSinceNanos.compareAndSet(0, sinceNanos);
+        }
+        if (mDeliveryQueued.compareAndSet(false, true)) {
+            mExecutor.execute(mDeliverRunnable);
+        }
+    }
+
+    private void callListener(long progress, boolean changed, long sinceNanos) {
+        DialView.OnDialViewChangeListener listener = mListener;
+        if (listener == null) return;
+        listener.onProgressChanged(mDialView, progress, changed);
+
+        ViewMetrics metrics = mMetrics;
+        if (metrics != null && sinceNanos != 0) {
+            metrics.recordListenerDispatch(System.nanoTime() - sinceNanos);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.mobile.piechart.views;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author David Castillo Fuentes
+ * Opt-in frame metrics of a PieChart or a DialView, given to the view with setMetrics(). A single
+ * instance can be shared by several views to get their totals.
+ *
+ * Recorded:
+ * - Draw time of every onDraw(), as a histogram of fixed buckets
+ * - Invalidations requested by the view
+ * - Touch events processed & touch samples they carried. Samples beyond the first of an event are
+ *   the ones the system coalesced (batched) into it
+ * - Listener dispatch latency, from a change to the end of the listener call that reports it
+ * - Bytes of the bitmaps held by the view
+ *
+ * Recording never allocates nor locks, every counter is an atomic and the histogram buckets are
+ * allocated up front, so it can be left on in production. Counters can be read from any thread.
+ * Every report interval, at the end of a draw pass, the OnMetricsListener is called on the UI
+ * thread with the rates of the interval updated.
+ */
+public final class ViewMetrics {
+
+    public static final long DEFAULT_REPORT_INTERVAL = 1000;
+    private static final long NANOS_PER_MICRO = 1000L;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final float NANOS_PER_SECOND = 1e9f;
+
+    // Upper bound of every draw time bucket but the last one, which takes the rest
+    private static final long[] DRAW_TIME_BOUNDS_MICROS =
+            {250, 500, 1000, 2000, 4000, 8000, 16000, 32000};
+
+    public interface OnMetricsListener {
+
+        /**
+         * Called on the UI thread once per report interval, while the views are drawn
+         *
+         * @param metrics
+         *            The metrics, with the rates of the last interval
+         */
+        void onMetrics(ViewMetrics metrics);
+
+    }
+
+    private final AtomicLongArray mDrawTimeBuckets =
+            new AtomicLongArray(DRAW_TIME_BOUNDS_MICROS.length + 1);
+    private final AtomicLong mDrawCount = new AtomicLong();
+    private final AtomicLong mDrawTimeNanos = new AtomicLong();
+    private final AtomicLong mInvalidationCount = new AtomicLong();
+    private final AtomicLong mTouchEventCount = new AtomicLong();
+    private final AtomicLong mTouchSampleCount = new AtomicLong();
+    private final AtomicLong mListenerDispatchCount = new AtomicLong();
+    private final AtomicLong mListenerDispatchNanos = new AtomicLong();
+    private final AtomicLong mMaxListenerDispatchNanos = new AtomicLong();
+    private final AtomicLong mBitmapBytes = new AtomicLong();
+
+    private volatile OnMetricsListener mListener;
+    private volatile long mReportIntervalNanos = DEFAULT_REPORT_INTERVAL * NANOS_PER_MILLI;
+
+    // Report window, only touched from the UI thread
+    private long mWindowStartNanos;
+    private long mWindowInvalidations;
+    private long mWindowDraws;
+    private volatile float mInvalidationsPerSecond;
+    private volatile float mDrawsPerSecond;
+
+    /**
+     * @param listener notified once per report interval, null to stop the reports
+     */
+    public void setOnMetricsListener(OnMetricsListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @param reportIntervalMillis time between two calls to the listener
+     */
+    public void setReportInterval(long reportIntervalMillis) {
+        if (reportIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Invalid report interval :: "
+                    + reportIntervalMillis);
+        }
+        mReportIntervalNanos = reportIntervalMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return returns the number of draw time buckets
+     */
+    public int getDrawTimeBucketCount() {
+        return mDrawTimeBuckets.length();
+    }
+
+    /**
+     * @return returns the upper bound (excluded) of the given bucket in microseconds, or
+     * Long.MAX_VALUE for the last one
+     */
+    public long getDrawTimeBucketBoundMicros(int bucket) {
+        return bucket < DRAW_TIME_BOUNDS_MICROS.length ? DRAW_TIME_BOUNDS_MICROS[bucket]
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return returns the number of draw passes that took the time of the given bucket
+     */
+    public long getDrawTimeBucket(int bucket) {
+        return mDrawTimeBuckets.get(bucket);
+    }
+
+    public long getDrawCount() {
+        return mDrawCount.get();
+    }
+
+    /**
+     * @return returns the time spent in every draw pass, in nanoseconds
+     */
+    public long getDrawTimeNanos() {
+        return mDrawTimeNanos.get();
+    }
+
+    public long getInvalidationCount() {
+        return mInvalidationCount.get();
+    }
+
+    /**
+     * @return returns the invalidations per second of the last report interval
+     */
+    public float getInvalidationsPerSecond() {
+        return mInvalidationsPerSecond;
+    }
+
+    /**
+     * @return returns the draw passes per second of the last report interval
+     */
+    public float getDrawsPerSecond() {
+        return mDrawsPerSecond;
+    }
+
+    /**
+     * @return returns the number of touch events processed
+     */
+    public long getTouchEventCount() {
+        return mTouchEventCount.get();
+    }
+
+    /**
+     * @return returns the number of touch samples processed, the current one of every event plus
+     * its historical ones
+     */
+    public long getTouchSampleCount() {
+        return mTouchSampleCount.get();
+    }
+
+    /**
+     * @return returns the number of touch samples that came coalesced into the event of a later one
+     */
+    public long getCoalescedTouchSampleCount() {
+        return mTouchSampleCount.get() - mTouchEventCount.get();
+    }
+
+    public long getListenerDispatchCount() {
+        return mListenerDispatchCount.get();
+    }
+
+    /**
+     * @return returns the latency of every listener dispatch, in nanoseconds
+     */
+    public long getListenerDispatchNanos() {
+        return mListenerDispatchNanos.get();
+    }
+
+    /**
+     * @return returns the worst listener dispatch latency, in nanoseconds
+     */
+    public long getMaxListenerDispatchNanos() {
+        return mMaxListenerDispatchNanos.get();
+    }
+
+    /**
+     * @return returns the bytes of the bitmaps held by the views
+     */
+    public long getBitmapBytes() {
+        return mBitmapBytes.get();
+    }
+
+    /**
+     * Clears every counter but the bitmap bytes, which are still held
+     */
+    public void reset() {
+        for (int i = 0; i < mDrawTimeBuckets.length(); i++) {
+            mDrawTimeBuckets.set(i, 0);
+        }
+        mDrawCount.set(0);
+        mDrawTimeNanos.set(0);
+        mInvalidationCount.set(0);
+        mTouchEventCount.set(0);
+        mTouchSampleCount.set(0);
+        mListenerDispatchCount.set(0);
+        mListenerDispatchNanos.set(0);
+        mMaxListenerDispatchNanos.set(0);
+    }
+
+    /**
+     * Called by the view at the end of every onDraw(), on the UI thread
+     */
+    void recordDraw(long startNanos, long endNanos) {
+        long micros = (endNanos - startNanos) / NANOS_PER_MICRO;
+        int bucket = 0;
+        final long[] bounds = DRAW_TIME_BOUNDS_MICROS;
+        while (bucket < bounds.length && micros >= bounds[bucket]) {
+            bucket++;
+        }
+        mDrawTimeBuckets.incrementAndGet(bucket);
+        mDrawCount.incrementAndGet();
+        mDrawTimeNanos.addAndGet(endNanos - startNanos);
+
+        maybeReport(endNanos);
+    }
+
+    void recordInvalidation() {
+        mInvalidationCount.incrementAndGet();
+    }
+
+    /**
+     * @param samples samples carried by the event, its current one plus the historical ones
+     */
+    void recordTouchEvent(int samples) {
+        mTouchEventCount.incrementAndGet();
+        mTouchSampleCount.addAndGet(samples);
+    }
+
+    /**
+     * @param latencyNanos time from the change to the end of the listener call that reported it
+     */
+    void recordListenerDispatch(long latencyNanos) {
+        mListenerDispatchCount.incrementAndGet();
+        mListenerDispatchNanos.addAndGet(latencyNanos);
+        long max = mMaxListenerDispatchNanos.get();
+        while (latencyNanos > max && !mMaxListenerDispatchNanos.compareAndSet(max, latencyNanos)) {
+            max = mMaxListenerDispatchNanos.get();
+        }
+    }
+
+    /**
+     * @param delta change in the bytes of the bitmaps held by a view
+     */
+    void addBitmapBytes(long delta) {
+        mBitmapBytes.addAndGet(delta);
+    }
+
+    private void maybeReport(long nowNanos) {
+        if (mWindowStartNanos == 0) {
+            mWindowStartNanos = nowNanos;
+            mWindowInvalidations = mInvalidationCount.get();
+            mWindowDraws = mDrawCount.get();
+            return;
+        }
+
+        long elapsed = nowNanos - mWindowStartNanos;
+        if (elapsed < mReportIntervalNanos) return;
+
+        long invalidations = mInvalidationCount.get();
+        long draws = mDrawCount.get();
+        mInvalidationsPerSecond =
+                (invalidations - mWindowInvalidations) * NANOS_PER_SECOND / elapsed;
+        mDrawsPerSecond = (draws - mWindowDraws) * NANOS_PER_SECOND / elapsed;
+        mWindowStartNanos = nowNanos;
+        mWindowInvalidations = invalidations;
+        mWindowDraws = draws;
+
+        OnMetricsListener listener = mListener;
+        if (listener != null) {
+            listener.onMetrics(this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.mobile.piechart.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Squared distance checks give the same answers as the ones with square roots
+ */
+public class DistancesTest {
+
+    @Test
+    public void distanceSquared() {
+        assertEquals(25f, Distances.distanceSquared(1f, 1f, 4f, 5f), 0f);
+        assertEquals(0f, Distances.distanceSquared(3f, 3f, 3f, 3f), 0f);
+    }
+
+    @Test
+    public void insideCircleMatchesSqrt() {
+        float radius = 37.5f;
+        for (int x = -50; x <= 50; x++) {
+            for (int y = -50; y <= 50; y++) {
+                boolean expected = Math.sqrt(x * x + y * y) < radius;
+                assertEquals(expected, Distances.isInsideCircle(x, y, 0f, 0f, radius));
+            }
+        }
+    }
+
+    @Test
+    public void insideRing() {
+        assertTrue(Distances.isInsideRing(110f, 100f, 100f, 100f, 5f, 10f));
+        assertTrue(Distances.isInsideRing(105f, 100f, 100f, 100f, 5f, 10f));
+        assertFalse(Distances.isInsideRing(102f, 100f, 100f, 100f, 5f, 10f));
+        assertFalse(Distances.isInsideRing(111f, 100f, 100f, 100f, 5f, 10f));
+    }
+}
@@ -0,0 +1,58 @@
+package com.mobile.piechart.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Accuracy of FastTrig against java.lang.Math, within the bounds documented in the class
+ */
+public class FastTrigTest {
+
+    private static final double ATAN2_TOLERANCE_DEGREES = Math.toDegrees(2e-6);
+    private static final double SIN_COS_TOLERANCE = 4.1e-7;
+
+    @Test
+    public void atan2MatchesMathOnTheWholeCircle() {
+        for (int i = 0; i < 36000; i++) {
+            double radians = Math.toRadians(i / 100d);
+            for (float radius = 0.5f; radius < 2000f; radius *= 4f) {
+                float x = (float) (radius * Math.cos(radians));
+                float y = (float) (radius * Math.sin(radians));
+                assertEquals(Math.toDegrees(Math.atan2(y, x)), FastTrig.atan2Degrees(y, x),
+                        ATAN2_TOLERANCE_DEGREES);
+            }
+        }
+    }
+
+    @Test
+    public void atan2OnTheAxes() {
+        assertEquals(0f, FastTrig.atan2Degrees(0f, 0f), 0f);
+        assertEquals(0f, FastTrig.atan2Degrees(0f, 10f), ATAN2_TOLERANCE_DEGREES);
+        assertEquals(90f, FastTrig.atan2Degrees(10f, 0f), ATAN2_TOLERANCE_DEGREES);
+        assertEquals(180f, FastTrig.atan2Degrees(0f, -10f), ATAN2_TOLERANCE_DEGREES);
+        assertEquals(-90f, FastTrig.atan2Degrees(-10f, 0f), ATAN2_TOLERANCE_DEGREES);
+    }
+
+    @Test
+    public void sinCosMatchMath() {
+        for (int i = -36000; i <= 36000; i++) {
+            float degrees = i / 100f;
+            double radians = Math.toRadians(degrees);
+            assertEquals(Math.sin(radians), FastTrig.sinDegrees(degrees), SIN_COS_TOLERANCE);
+            assertEquals(Math.cos(radians), FastTrig.cosDegrees(degrees), SIN_COS_TOLERANCE);
+        }
+    }
+
+    @Test
+    public void sinCosKeepTheirAccuracyAfterManyTurns() {
+        // The dial goes up to 8550 degrees
+        for (int i = -8550; i <= 8550; i++) {
+            // A fraction that floats can't hold exactly, it rounds differently at every magnitude
+            float degrees = i + 0.001f;
+            double radians = Math.toRadians((double) degrees);
+            assertEquals(Math.sin(radians), FastTrig.sinDegrees(degrees), SIN_COS_TOLERANCE);
+            assertEquals(Math.cos(radians), FastTrig.cosDegrees(degrees), SIN_COS_TOLERANCE);
+        }
+    }
+}
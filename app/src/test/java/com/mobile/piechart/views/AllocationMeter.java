@@ -0,0 +1,43 @@
+package com.mobile.piechart.views;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Bytes allocated by the current thread, read from the ThreadMXBean of the JVM. The few bytes the
+ * reading itself may allocate are measured once & discounted
+ */
+public class AllocationMeter {
+
+    private static final int CALIBRATION_ROUNDS = 16;
+
+    private final com.sun.management.ThreadMXBean mThreadBean;
+    private final long mThreadId;
+    private final long mOverhead;
+
+    public AllocationMeter() {
+        mThreadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+        mThreadId = Thread.currentThread().getId();
+
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = read();
+            overhead = Math.min(overhead, read() - start);
+        }
+        mOverhead = overhead;
+    }
+
+    /**
+     * @return returns the bytes allocated by the thread so far, to be given to bytesSince()
+     */
+    public long read() {
+        return mThreadBean.getThreadAllocatedBytes(mThreadId);
+    }
+
+    /**
+     * @return returns the bytes allocated by the thread since the given read()
+     */
+    public long bytesSince(long start) {
+        return Math.max(0, read() - start - mOverhead);
+    }
+}
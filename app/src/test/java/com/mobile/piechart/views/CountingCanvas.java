@@ -0,0 +1,61 @@
+package com.mobile.piechart.views;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Canvas that only counts the draw calls it gets, nothing is drawn so the shadows of the test
+ * environment don't add their own work (or allocations) to the frame being measured
+ */
+public class CountingCanvas extends Canvas {
+
+    private int mDrawCount;
+
+    public int getDrawCount() {
+        return mDrawCount;
+    }
+
+    public void reset() {
+        mDrawCount = 0;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter,
+                        Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawLines(float[] pts, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        mDrawCount++;
+    }
+}
@@ -0,0 +1,116 @@
+package com.mobile.piechart.views;
+
+import android.app.Activity;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.mobile.piechart.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Allocations & draw calls of every DialView frame during a drag, in both render modes, checked
+ * against the FrameBudgets. Every frame is a MOVE event followed by a draw pass
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DialViewFrameBudgetTest {
+
+    private static final int SIZE = 1000;
+    private static final long FRAME_MILLIS = 16;
+    // Degrees the finger moves between two events
+    private static final int DRAG_STEP = 7;
+
+    private DialView mDialView;
+    private CountingCanvas mCanvas;
+    private AllocationMeter mMeter;
+    private MotionEvent[] mDrag;
+
+    @Before
+    public void setUp() {
+        // Images are only taken from the cache while the view is attached to a window
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        ShadowLooper.pauseMainLooper();
+
+        mDialView = new DialView(activity);
+        // The view asks its parent not to intercept the drag
+        FrameLayout parent = new FrameLayout(activity);
+        parent.addView(mDialView);
+        activity.setContentView(parent);
+        mDialView.measure(View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY));
+        mDialView.layout(0, 0, SIZE, SIZE);
+
+        mCanvas = new CountingCanvas();
+        mMeter = new AllocationMeter();
+
+        // Events are obtained up front, obtaining them allocates
+        mDrag = new MotionEvent[FrameBudgets.FRAMES + 1];
+        float radius = SIZE / 3f;
+        for (int i = 0; i < mDrag.length; i++) {
+            double angle = Math.toRadians(i * DRAG_STEP);
+            float x = SIZE / 2f + (float) (radius * Math.cos(angle));
+            float y = SIZE / 2f + (float) (radius * Math.sin(angle));
+            mDrag[i] = MotionEvent.obtain(0, i * FRAME_MILLIS,
+                    i == 0 ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_MOVE, x, y, 0);
+        }
+    }
+
+    @Test
+    public void bitmapModeDragStaysWithinBudget() throws InterruptedException {
+        mDialView.setRenderMode(DialView.RENDER_MODE_BITMAP);
+        // The images are decoded in the background & delivered through the paused UI thread,
+        // without them only the placeholder is drawn
+        BitmapCache.getInstance().waitForDecodes();
+        ShadowLooper.runUiThreadTasks();
+        drag(FrameBudgets.DIAL_VIEW_DRAWS);
+    }
+
+    @Test
+    public void vectorModeDragStaysWithinBudget() {
+        mDialView.setRenderMode(DialView.RENDER_MODE_VECTOR);
+        drag(FrameBudgets.DIAL_VIEW_VECTOR_DRAWS);
+    }
+
+    /**
+     * @param draws draw calls expected in every frame
+     */
+    private void drag(int draws) {
+        // Warm up, the DOWN event presses the view & the first draw pass records the static layer
+        mDialView.onTouchEvent(mDrag[0]);
+        mDialView.draw(mCanvas);
+
+        long touchBytes = 0;
+        long drawBytes = 0;
+        for (int frame = 1; frame < mDrag.length; frame++) {
+            long start = mMeter.read();
+            mDialView.onTouchEvent(mDrag[frame]);
+            touchBytes += mMeter.bytesSince(start);
+
+            mCanvas.reset();
+            start = mMeter.read();
+            mDialView.draw(mCanvas);
+            drawBytes += mMeter.bytesSince(start);
+
+            // Exactly the face & the knob, fewer means the knob wasn't drawn
+            assertEquals("Draw calls in frame " + frame, draws, mCanvas.getDrawCount());
+        }
+
+        // The drag must have moved the knob, or nothing was measured
+        assertTrue(mDialView.getCurrentAngle() > 0);
+        FrameBudgets.assertBytesPerFrame("Bytes per DialView touch event", touchBytes,
+                FrameBudgets.DIAL_VIEW_TOUCH_BYTES);
+        FrameBudgets.assertBytesPerFrame("Bytes per DialView frame", drawBytes,
+                FrameBudgets.DIAL_VIEW_DRAW_BYTES);
+    }
+}
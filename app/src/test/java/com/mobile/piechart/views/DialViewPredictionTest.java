@@ -0,0 +1,92 @@
+package com.mobile.piechart.views;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.mobile.piechart.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Knob prediction of a DialView, ahead of the finger while it moves & on the true angle once it
+ * stops. The clock of the paused UI thread is advanced along with the touch samples
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DialViewPredictionTest {
+
+    private static final int SIZE = 1000;
+    private static final long SAMPLE_MILLIS = 8;
+    // Degrees the finger moves between two samples
+    private static final int DRAG_STEP = 7;
+    private static final int SAMPLES = 10;
+    // Longer than the input interval after which the finger is taken as stopped
+    private static final long STILL_MILLIS = 50;
+
+    private DialView mDialView;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        ShadowLooper.pauseMainLooper();
+
+        mDialView = new DialView(activity);
+        // The view asks its parent not to intercept the drag
+        FrameLayout parent = new FrameLayout(activity);
+        parent.addView(mDialView);
+        activity.setContentView(parent);
+        mDialView.measure(View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY));
+        mDialView.layout(0, 0, SIZE, SIZE);
+        mDialView.setPredictionEnabled(true);
+    }
+
+    @Test
+    public void knobIsDrawnAheadOfAMovingFinger() {
+        drag();
+        assertTrue("The knob must be predicted ahead of the finger",
+                mDialView.getKnobRenderAngle() > mDialView.getCurrentAngle());
+    }
+
+    @Test
+    public void knobSettlesOnTheCurrentAngleWhenTheFingerStops() {
+        drag();
+        // The finger stays down without moving, no more samples arrive
+        ShadowLooper.idleMainLooper(STILL_MILLIS);
+        assertEquals(mDialView.getCurrentAngle(), mDialView.getKnobRenderAngle(), 0f);
+    }
+
+    /**
+     * Drags the finger clockwise at a constant speed, one sample every SAMPLE_MILLIS, and leaves
+     * it down
+     */
+    private void drag() {
+        long downTime = SystemClock.uptimeMillis();
+        float radius = SIZE / 3f;
+        for (int i = 0; i <= SAMPLES; i++) {
+            if (i > 0) {
+                ShadowLooper.idleMainLooper(SAMPLE_MILLIS);
+            }
+            double angle = Math.toRadians(i * DRAG_STEP);
+            float x = SIZE / 2f + (float) (radius * Math.cos(angle));
+            float y = SIZE / 2f + (float) (radius * Math.sin(angle));
+            MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(),
+                    i == 0 ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_MOVE, x, y, 0);
+            mDialView.onTouchEvent(event);
+            event.recycle();
+        }
+        assertTrue(mDialView.getCurrentAngle() > 0);
+    }
+}
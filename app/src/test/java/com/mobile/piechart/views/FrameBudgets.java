@@ -0,0 +1,41 @@
+package com.mobile.piechart.views;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Committed per frame budgets of the views. A change that makes a view go over one of them fails
+ * the build, raise a budget only together with the change that needs it.
+ *
+ * Allocations are in bytes per frame, averaged over the frames of a test & rounded down, so a one
+ * time allocation of a few bytes doesn't count while an allocation on every frame does.
+ */
+final class FrameBudgets {
+
+    // Frames measured by every test, after a warm up frame
+    static final int FRAMES = 120;
+
+    static final long PIE_CHART_DRAW_BYTES = 0;
+    static final long DIAL_VIEW_DRAW_BYTES = 0;
+    static final long DIAL_VIEW_TOUCH_BYTES = 0;
+
+    // Draw calls: the static layer plus one per ring, or per run of slices
+    static final int PIE_CHART_LAYER_DRAWS = 1;
+    static final int PIE_CHART_DRAWS_PER_RING = 1;
+    static final int PIE_CHART_DRAWS_PER_RUN = 1;
+    // Draw calls in RENDER_MODE_BITMAP: the static layer plus the knob
+    static final int DIAL_VIEW_DRAWS = 2;
+    // Draw calls in RENDER_MODE_VECTOR, which has no layer: 4 labels, the ticks, the shadow, the
+    // oval & the knob ring, plus the knob marker
+    static final int DIAL_VIEW_VECTOR_DRAWS = 9;
+
+    private FrameBudgets() {
+    }
+
+    /**
+     * Fails if the given bytes, allocated over FRAMES frames, go over the given per frame budget
+     */
+    static void assertBytesPerFrame(String what, long totalBytes, long budget) {
+        long perFrame = totalBytes / FRAMES;
+        assertTrue(what + " :: " + perFrame + " over the budget of " + budget, perFrame <= budget);
+    }
+}
@@ -0,0 +1,153 @@
+package com.mobile.piechart.views;
+
+import android.app.Activity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.mobile.piechart.BuildConfig;
+import com.mobile.piechart.animation.FrameClock;
+import com.mobile.piechart.data.SliceModel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Allocations & draw calls of every PieChart frame while its rings or slices are animated,
+ * checked against the FrameBudgets
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PieChartFrameBudgetTest {
+
+    private static final int SIZE = 1000;
+    private static final long FRAME_NANOS = 16666667L;
+    private static final int SLICES = 512;
+
+    private PieChart mPieChart;
+    private CountingCanvas mCanvas;
+    private AllocationMeter mMeter;
+    private long mFrameTimeNanos;
+
+    @Before
+    public void setUp() {
+        // Animations are paused while the chart is detached, it has to be in a visible window
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        // Frames are driven by the test through the FrameClock, never by the looper
+        ShadowLooper.pauseMainLooper();
+
+        mPieChart = new PieChart(activity);
+        FrameLayout parent = new FrameLayout(activity);
+        parent.addView(mPieChart);
+        activity.setContentView(parent);
+        mPieChart.measure(View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY));
+        mPieChart.layout(0, 0, SIZE, SIZE);
+
+        mCanvas = new CountingCanvas();
+        mMeter = new AllocationMeter();
+        mFrameTimeNanos = System.nanoTime();
+    }
+
+    @Test
+    public void animatedRingsStayWithinBudget() {
+        mPieChart.animateRings();
+        int drawBudget = FrameBudgets.PIE_CHART_LAYER_DRAWS
+                + mPieChart.getRingCount() * FrameBudgets.PIE_CHART_DRAWS_PER_RING;
+        // The first frame starts the sweeps from 0
+        drawFrame();
+        float firstSweep = mPieChart.getRingSweepAngle(0);
+
+        long bytes = drawFrames(drawBudget);
+
+        // Static frames would pass the budget too
+        assertFalse("The rings must animate", firstSweep == mPieChart.getRingSweepAngle(0));
+
+        FrameBudgets.assertBytesPerFrame("Bytes per PieChart frame", bytes,
+                FrameBudgets.PIE_CHART_DRAW_BYTES);
+    }
+
+    @Test
+    public void smallSlicesAreMergedIntoRuns() {
+        float[] values = new float[SLICES];
+        for (int i = 0; i < SLICES; i++) {
+            values[i] = 1f / (1 + i);
+        }
+        mPieChart.setSliceValues(values);
+        drawFrame();
+
+        // The tail of 1 / (1 + i) is far below a pixel of arc at this size
+        int runs = mPieChart.getSliceModel().getRunCount();
+        assertTrue("Runs must merge the slices :: " + runs, runs < SLICES);
+    }
+
+    @Test
+    public void animatedSlicesStayWithinBudget() {
+        float[] values = new float[SLICES];
+        for (int i = 0; i < SLICES; i++) {
+            values[i] = 1f / (1 + i);
+        }
+        mPieChart.setSliceValues(values);
+        for (int i = 0; i < SLICES; i++) {
+            values[i] = 1f / (SLICES - i);
+        }
+        mPieChart.transitionTo(values);
+
+        // One draw per run. Every run but the last sweeps at least the min run angle, whatever
+        // values the transition is at, so that bounds the runs of every frame
+        drawFrame();
+        SliceModel model = mPieChart.getSliceModel();
+        int maxRuns = (int) (SliceModel.FULL_CIRCLE / model.getRunMinAngle()) + 1;
+        int drawBudget = FrameBudgets.PIE_CHART_LAYER_DRAWS
+                + Math.min(SLICES, maxRuns) * FrameBudgets.PIE_CHART_DRAWS_PER_RUN;
+        float firstValue = model.getValue(0);
+
+        long bytes = drawFrames(drawBudget);
+
+        // Static frames would pass the budget too
+        assertFalse("The slices must animate", firstValue == model.getValue(0));
+
+        FrameBudgets.assertBytesPerFrame("Bytes per PieChart frame", bytes,
+                FrameBudgets.PIE_CHART_DRAW_BYTES);
+    }
+
+    /**
+     * Runs FrameBudgets.FRAMES animation frames, checking the draw calls of each one
+     *
+     * @return returns the bytes allocated by all the draw passes
+     */
+    private long drawFrames(int drawBudget) {
+        // Warm up, the first draw pass records the static layer
+        drawFrame();
+
+        long bytes = 0;
+        for (int frame = 0; frame < FrameBudgets.FRAMES; frame++) {
+            // The animation tick runs outside of the measure, the test environment schedules
+            // frames with allocations of its own
+            mFrameTimeNanos += FRAME_NANOS;
+            FrameClock.getInstance().doFrame(mFrameTimeNanos);
+
+            mCanvas.reset();
+            long start = mMeter.read();
+            mPieChart.draw(mCanvas);
+            bytes += mMeter.bytesSince(start);
+
+            assertTrue("Draw calls in frame " + frame + " :: " + mCanvas.getDrawCount(),
+                    mCanvas.getDrawCount() <= drawBudget);
+        }
+        return bytes;
+    }
+
+    private void drawFrame() {
+        mFrameTimeNanos += FRAME_NANOS;
+        FrameClock.getInstance().doFrame(mFrameTimeNanos);
+        mPieChart.draw(mCanvas);
+    }
+}
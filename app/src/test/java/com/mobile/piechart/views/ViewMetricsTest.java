@@ -0,0 +1,89 @@
+package com.mobile.piechart.views;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Histogram buckets, derived counters & the per interval report of the metrics
+ */
+public class ViewMetricsTest {
+
+    private static final long MILLI = 1000000L;
+
+    @Test
+    public void drawTimesFallIntoTheirBuckets() {
+        ViewMetrics metrics = new ViewMetrics();
+        metrics.recordDraw(0, 100 * 1000L);
+        metrics.recordDraw(0, 250 * 1000L);
+        metrics.recordDraw(0, 5 * MILLI);
+        metrics.recordDraw(0, 100 * MILLI);
+
+        int last = metrics.getDrawTimeBucketCount() - 1;
+        assertEquals(1, metrics.getDrawTimeBucket(0));
+        assertEquals(1, metrics.getDrawTimeBucket(1));
+        assertEquals(1, metrics.getDrawTimeBucket(5));
+        assertEquals(1, metrics.getDrawTimeBucket(last));
+        assertEquals(Long.MAX_VALUE, metrics.getDrawTimeBucketBoundMicros(last));
+        assertEquals(4, metrics.getDrawCount());
+    }
+
+    @Test
+    public void coalescedSamplesAreTheHistoricalOnes() {
+        ViewMetrics metrics = new ViewMetrics();
+        metrics.recordTouchEvent(1);
+        metrics.recordTouchEvent(4);
+        assertEquals(2, metrics.getTouchEventCount());
+        assertEquals(5, metrics.getTouchSampleCount());
+        assertEquals(3, metrics.getCoalescedTouchSampleCount());
+    }
+
+    @Test
+    public void listenerLatencyKeepsTheWorst() {
+        ViewMetrics metrics = new ViewMetrics();
+        metrics.recordListenerDispatch(300);
+        metrics.recordListenerDispatch(900);
+        metrics.recordListenerDispatch(500);
+        assertEquals(3, metrics.getListenerDispatchCount());
+        assertEquals(1700, metrics.getListenerDispatchNanos());
+        assertEquals(900, metrics.getMaxListenerDispatchNanos());
+    }
+
+    @Test
+    public void resetKeepsTheBitmapBytes() {
+        ViewMetrics metrics = new ViewMetrics();
+        metrics.addBitmapBytes(4096);
+        metrics.recordInvalidation();
+        metrics.recordDraw(0, MILLI);
+        metrics.reset();
+        assertEquals(0, metrics.getInvalidationCount());
+        assertEquals(0, metrics.getDrawCount());
+        assertEquals(4096, metrics.getBitmapBytes());
+    }
+
+    @Test
+    public void ratesAreReportedOncePerInterval() {
+        final ViewMetrics metrics = new ViewMetrics();
+        final int[] reports = new int[1];
+        metrics.setOnMetricsListener(new ViewMetrics.OnMetricsListener() {
+            @Override
+            public void onMetrics(ViewMetrics reported) {
+                assertSame(metrics, reported);
+                reports[0]++;
+            }
+        });
+
+        // 60 frames per second for 2 seconds, invalidated twice per frame
+        long frame = 1000 * MILLI / 60;
+        for (int i = 1; i <= 120; i++) {
+            metrics.recordInvalidation();
+            metrics.recordInvalidation();
+            metrics.recordDraw(i * frame, i * frame + MILLI);
+        }
+
+        assertEquals(1, reports[0]);
+        assertEquals(60f, metrics.getDrawsPerSecond(), 1f);
+        assertEquals(120f, metrics.getInvalidationsPerSecond(), 2f);
+    }
+}
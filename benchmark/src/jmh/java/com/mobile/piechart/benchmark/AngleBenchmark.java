@@ -0,0 +1,122 @@
+package com.mobile.piechart.benchmark;
+
+import com.mobile.piechart.geometry.ChartLayout;
+import com.mobile.piechart.geometry.Distances;
+import com.mobile.piechart.geometry.FastTrig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author David Castillo Fuentes
+ * Touch path of the DialView: the angle of every touch sample, the wrap from one sample to the
+ * next & the touch radius check, with the geometry kernel against java.lang.Math
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AngleBenchmark {
+
+    private static final int SAMPLES = 1024;
+    private static final float RADIUS = 500f;
+    private static final float IGNORE_RADIUS = 100f;
+
+    private final float[] mX = new float[SAMPLES];
+    private final float[] mY = new float[SAMPLES];
+    private final int[] mDegrees = new int[SAMPLES];
+
+    @Setup
+    public void setUp() {
+        // A fast spin, the finger moves a few degrees from one sample to the next
+        Random random = new Random(42);
+        double angle = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            angle += Math.toRadians(1 + random.nextInt(20));
+            float radius = RADIUS * random.nextFloat();
+            mX[i] = (float) (radius * Math.cos(angle));
+            mY[i] = (float) (radius * Math.sin(angle));
+            mDegrees[i] = (int) (Math.toDegrees(angle) % 360);
+        }
+    }
+
+    @Benchmark
+    public void touchDegreesMath(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(Math.toDegrees(Math.atan2(mY[i], mX[i]) + (Math.PI / 2)));
+        }
+    }
+
+    @Benchmark
+    public void touchDegreesFastTrig(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(FastTrig.atan2Degrees(mY[i], mX[i]) + 90);
+        }
+    }
+
+    @Benchmark
+    public int shortestDelta() {
+        int total = 0;
+        for (int i = 1; i < SAMPLES; i++) {
+            total += ChartLayout.shortestDelta(mDegrees[i - 1], mDegrees[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int quadrantWrap() {
+        // The wrap DialView used before the shortest delta, kept as the baseline
+        int total = 0;
+        for (int i = 1; i < SAMPLES; i++) {
+            int angle1 = mDegrees[i - 1];
+            int angle2 = mDegrees[i];
+            if (angle1 >= 0 && angle1 <= 90 && angle2 >= 270 && angle2 <= 360) {
+                total += -(angle1 + (360 - angle2));
+            } else if (angle2 >= 0 && angle2 <= 90 && angle1 >= 270 && angle1 <= 360) {
+                total += angle2 + (360 - angle1);
+            } else {
+                total += angle2 - angle1;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void ignoreTouchSqrt(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(Math.sqrt(mX[i] * mX[i] + mY[i] * mY[i]) < IGNORE_RADIUS);
+        }
+    }
+
+    @Benchmark
+    public void ignoreTouchSquared(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(Distances.isInsideCircle(mX[i], mY[i], 0f, 0f, IGNORE_RADIUS));
+        }
+    }
+
+    @Benchmark
+    public void sinCosMath(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            double radians = Math.toRadians(mDegrees[i]);
+            blackhole.consume(Math.cos(radians));
+            blackhole.consume(Math.sin(radians));
+        }
+    }
+
+    @Benchmark
+    public void sinCosFastTrig(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(FastTrig.cosDegrees(mDegrees[i]));
+            blackhole.consume(FastTrig.sinDegrees(mDegrees[i]));
+        }
+    }
+}
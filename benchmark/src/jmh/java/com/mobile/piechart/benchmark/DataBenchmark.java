@@ -0,0 +1,129 @@
+package com.mobile.piechart.benchmark;
+
+import com.mobile.piechart.data.AggregateSnapshot;
+import com.mobile.piechart.data.CategoryAggregator;
+import com.mobile.piechart.data.SliceModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author David Castillo Fuentes
+ * Data paths of the chart in MODE_SLICES: replacing & updating the values, building the runs for
+ * a given chart size, hit testing the slices, and aggregating raw records into categories
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataBenchmark {
+
+    private static final int HIT_POINTS = 1024;
+    private static final int RECORDS = 256 * 1024;
+    // Min run angle of a 1000px chart, one pixel of arc length
+    private static final float MIN_RUN_ANGLE = (float) Math.toDegrees(1f / 500f);
+
+    @Param({"8", "64", "512", "4096"})
+    public int sliceCount;
+
+    private float[] mValues;
+    private SliceModel mSliceModel;
+    private float[] mHitAngles;
+    private int mNextSlice;
+
+    private int[] mCategories;
+    private double[] mRecordValues;
+    private CategoryAggregator mAggregator;
+    private final Semaphore mSnapshots = new Semaphore(0);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        mValues = new float[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            // Long tail, many slices end up merged into runs
+            mValues[i] = 1f / (1 + i) + random.nextFloat() * 0.01f;
+        }
+        mSliceModel = new SliceModel();
+        mSliceModel.setValues(mValues, sliceCount);
+
+        mHitAngles = new float[HIT_POINTS];
+        for (int i = 0; i < HIT_POINTS; i++) {
+            mHitAngles[i] = SliceModel.FULL_CIRCLE * i / HIT_POINTS;
+        }
+
+        mCategories = new int[RECORDS];
+        mRecordValues = new double[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            mCategories[i] = random.nextInt(sliceCount);
+            mRecordValues[i] = random.nextDouble();
+        }
+        mAggregator = new CategoryAggregator(sliceCount);
+        mAggregator.setOnSnapshotListener(new CategoryAggregator.OnSnapshotListener() {
+            @Override
+            public void onSnapshot(CategoryAggregator aggregator, AggregateSnapshot snapshot) {
+                mSnapshots.release();
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mAggregator.shutdown();
+    }
+
+    @Benchmark
+    public double setValues() {
+        mSliceModel.setValues(mValues, sliceCount);
+        return mSliceModel.getTotal();
+    }
+
+    @Benchmark
+    public double setValue() {
+        int slice = mNextSlice;
+        mNextSlice = (slice + 1) % sliceCount;
+        mSliceModel.setValue(slice, mValues[slice]);
+        return mSliceModel.getTotal();
+    }
+
+    @Benchmark
+    public int updateRuns() {
+        // Changing the values marks the runs dirty, so they are rebuilt on every call
+        mSliceModel.setValue(0, mValues[0]);
+        mSliceModel.updateRuns(MIN_RUN_ANGLE);
+        return mSliceModel.getRunCount();
+    }
+
+    @Benchmark
+    public void indexAtAngle(Blackhole blackhole) {
+        for (int i = 0; i < HIT_POINTS; i++) {
+            blackhole.consume(mSliceModel.indexAtAngle(mHitAngles[i]));
+        }
+    }
+
+    @Benchmark
+    public AggregateSnapshot aggregate() throws InterruptedException {
+        mAggregator.submit(mCategories, mRecordValues, RECORDS);
+        // Wait for the snapshot of the batch, or the next benchmark call would overlap it
+        mSnapshots.acquire();
+        return mAggregator.getSnapshot();
+    }
+}
@@ -0,0 +1,76 @@
+package com.mobile.piechart.benchmark;
+
+import com.mobile.piechart.animation.EasingTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author David Castillo Fuentes
+ * One animation frame of every ring: the eased fraction of each ring & its interpolated sweep,
+ * with the precomputed EasingTable against evaluating the accelerate/decelerate curve directly
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InterpolationBenchmark {
+
+    private static final int FRAMES = 60;
+
+    @Param({"1", "3", "16", "64"})
+    public int ringCount;
+
+    private EasingTable mEasingTable;
+    private float[] mSweepAngles;
+    private float[] mCurrentAngles;
+
+    @Setup
+    public void setUp() {
+        float[] samples = new float[EasingTable.DEFAULT_SIZE];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = accelerateDecelerate((float) i / (samples.length - 1));
+        }
+        mEasingTable = new EasingTable(samples);
+
+        mSweepAngles = new float[ringCount];
+        mCurrentAngles = new float[ringCount];
+        for (int i = 0; i < ringCount; i++) {
+            mSweepAngles[i] = 360f * (i + 1) / ringCount;
+        }
+    }
+
+    @Benchmark
+    public float easingTable() {
+        for (int frame = 0; frame <= FRAMES; frame++) {
+            float input = (float) frame / FRAMES;
+            for (int i = 0; i < ringCount; i++) {
+                mCurrentAngles[i] = mSweepAngles[i] * mEasingTable.valueAt(input);
+            }
+        }
+        return mCurrentAngles[ringCount - 1];
+    }
+
+    @Benchmark
+    public float interpolator() {
+        for (int frame = 0; frame <= FRAMES; frame++) {
+            float input = (float) frame / FRAMES;
+            for (int i = 0; i < ringCount; i++) {
+                mCurrentAngles[i] = mSweepAngles[i] * accelerateDecelerate(input);
+            }
+        }
+        return mCurrentAngles[ringCount - 1];
+    }
+
+    // Same curve as android.view.animation.AccelerateDecelerateInterpolator
+    private static float accelerateDecelerate(float input) {
+        return (float) (Math.cos((input + 1) * Math.PI) / 2.0f) + 0.5f;
+    }
+}
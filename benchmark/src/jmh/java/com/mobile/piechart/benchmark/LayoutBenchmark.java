@@ -0,0 +1,89 @@
+package com.mobile.piechart.benchmark;
+
+import com.mobile.piechart.geometry.ChartLayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author David Castillo Fuentes
+ * Layout phase of the views: the square the chart is drawn in, the geometry of every ring & the
+ * hit testing of the rings against that geometry
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LayoutBenchmark {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1584;
+    private static final float STROKE_WIDTH_PERCENTAGE = 0.05f;
+    private static final int HIT_POINTS = 1024;
+
+    @Param({"1", "3", "16", "64"})
+    public int ringCount;
+
+    private final float[] mBounds = new float[4];
+    private float[] mStrokeWidthPercentages;
+    private float[] mInsets;
+    private float[] mStrokeWidths;
+    private float[] mOuterRadii;
+    private float[] mInnerRadii;
+    private float mBaseSize;
+    private float mBaseRadius;
+    private float mPadding;
+    private float[] mHitDistances;
+
+    @Setup
+    public void setUp() {
+        mStrokeWidthPercentages = new float[ringCount];
+        for (int i = 0; i < ringCount; i++) {
+            mStrokeWidthPercentages[i] = Math.max(0.01f, STROKE_WIDTH_PERCENTAGE - i * 0.01f);
+        }
+        mInsets = new float[ringCount];
+        mStrokeWidths = new float[ringCount];
+        mOuterRadii = new float[ringCount];
+        mInnerRadii = new float[ringCount];
+
+        mBaseSize = Math.min(WIDTH, HEIGHT);
+        mPadding = STROKE_WIDTH_PERCENTAGE * mBaseSize;
+        ChartLayout.squareBounds(WIDTH, HEIGHT, mPadding, mBounds);
+        mBaseRadius = (mBounds[2] - mBounds[0]) / 2f;
+        layoutRings();
+
+        mHitDistances = new float[HIT_POINTS];
+        for (int i = 0; i < HIT_POINTS; i++) {
+            mHitDistances[i] = mBaseRadius * 1.1f * i / HIT_POINTS;
+        }
+    }
+
+    @Benchmark
+    public float squareBounds() {
+        ChartLayout.squareBounds(WIDTH, HEIGHT, mPadding, mBounds);
+        return mBounds[3];
+    }
+
+    @Benchmark
+    public float layoutRings() {
+        ChartLayout.layoutRings(mBaseSize, mBaseRadius, mPadding, mStrokeWidthPercentages,
+                ringCount, mInsets, mStrokeWidths, mOuterRadii, mInnerRadii);
+        return mInnerRadii[ringCount - 1];
+    }
+
+    @Benchmark
+    public void ringAt(Blackhole blackhole) {
+        for (int i = 0; i < HIT_POINTS; i++) {
+            blackhole.consume(ChartLayout.ringAt(mOuterRadii, mInnerRadii, ringCount,
+                    mHitDistances[i]));
+        }
+    }
+}